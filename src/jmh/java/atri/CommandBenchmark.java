@@ -0,0 +1,106 @@
+package atri;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of whole commands through {@link Atri#getResponse}, from parsing to the journal
+ * write, on task lists of different sizes. Run with {@code -prof gc} (the default for the jmh task) to also
+ * see the bytes allocated per command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CommandBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    private final CommandTable commandTable = new CommandTable();
+    private Path directory;
+    private Atri atri;
+    private int next;
+
+    /**
+     * Saves the tasks as a snapshot and starts Atri on it, with the find index already built.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("atri-bench");
+        Path dataFile = directory.resolve("atri.txt");
+        TextSnapshot.write(dataFile, SnapshotFormatBenchmark.createTasks(taskCount));
+        Storage storage = new Storage(dataFile);
+        storage.setQuiet(true);
+        atri = new Atri(storage);
+        atri.getResponse("find warm up the index");
+        commandTable.register("deadline", command -> command.flag("/by"), "/by");
+    }
+
+    /**
+     * Stops Atri and deletes its files.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        atri.close();
+        SnapshotFormatBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public String add() {
+        return atri.getResponse("todo read chapter " + next++);
+    }
+
+    /**
+     * Marks tasks in turn, so every call changes a task and is journaled.
+     */
+    @Benchmark
+    public String mark() {
+        next = next % taskCount + 1;
+        return atri.getResponse("mark " + next);
+    }
+
+    /**
+     * Deletes the first task and adds one at the end, which keeps the list at the same size.
+     */
+    @Benchmark
+    public String deleteAndAdd() {
+        atri.getResponse("delete 1");
+        return atri.getResponse("todo read chapter " + next++);
+    }
+
+    @Benchmark
+    public String list() {
+        return atri.getResponse("list");
+    }
+
+    @Benchmark
+    public String find() {
+        return atri.getResponse("find report 100");
+    }
+
+    /**
+     * Splits a deadline command line into its name, description and date, without running it.
+     */
+    @Benchmark
+    public String parseCommand() {
+        ParsedCommand command = commandTable.parse("deadline submit report /by 2024-12-25 1800");
+        return command.description() + command.flag("/by");
+    }
+}
@@ -0,0 +1,132 @@
+package atri;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how list, find and mark scale with the number of threads sharing one task list, for the
+ * {@link ConcurrentTaskList} and for a plain TaskList behind one monitor.
+ * Run it at each thread count with JMH's {@code -t} option, e.g.
+ * {@code for t in 1 2 4 8 16; do ./gradlew jmh --args="ConcurrentTaskList -t $t"; done}.
+ * The {@code readWrite} group always runs three readers listing pages next to one writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentTaskListBenchmark {
+    @Param({"100000"})
+    private int taskCount;
+
+    @Param({"stamped", "synchronized"})
+    private String lock;
+
+    private TaskList taskList;
+
+    /**
+     * Creates the shared list.
+     */
+    @Setup
+    public void setUp() {
+        ArrayList<Task> tasks = new ArrayList<>(SnapshotFormatBenchmark.createTasks(taskCount));
+        taskList = lock.equals("stamped") ? new ConcurrentTaskList(tasks) : new SynchronizedTaskList(tasks);
+        taskList.buildIndexes();
+    }
+
+    /**
+     * Where each thread is in the list, so that threads read and mark different tasks.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            next = (next + 7919) % bound;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public TaskListPage listPage(Cursor cursor) {
+        return TaskListPage.of(taskList, cursor.next(taskCount / 100) + 1, 100, false);
+    }
+
+    @Benchmark
+    public List<Task> find() {
+        return taskList.read(() -> taskList.findTasks("report 100"));
+    }
+
+    /**
+     * Marks a task picked by id, resolving the id and marking the task in one step.
+     */
+    @Benchmark
+    public int markById(Cursor cursor) {
+        int id = cursor.next(taskCount) + 1;
+        return taskList.update(() -> {
+            int index = taskList.getIndexOfId(id);
+            if (index >= 0) {
+                taskList.markTaskDone(index);
+            }
+            return index;
+        });
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public TaskListPage readWriteReader(Cursor cursor) {
+        return listPage(cursor);
+    }
+
+    /**
+     * Deletes the first task and adds one at the end, which keeps the list at the same size.
+     */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public int readWriteWriter() {
+        return taskList.update(() -> {
+            taskList.deleteTask(0);
+            taskList.addTask(new ToDo("read chapter"));
+            return taskList.getSize();
+        });
+    }
+
+    /**
+     * A plain TaskList whose reads and updates all hold one monitor, the simplest safe alternative.
+     * The benchmarks go through {@link #read} and {@link #update} for every operation, so it is used safely.
+     */
+    private static class SynchronizedTaskList extends TaskList {
+        SynchronizedTaskList(ArrayList<Task> tasks) {
+            super(tasks);
+        }
+
+        @Override
+        synchronized <T> T read(Supplier<T> action) {
+            return action.get();
+        }
+
+        @Override
+        synchronized <T> T update(Supplier<T> action) {
+            return action.get();
+        }
+    }
+}
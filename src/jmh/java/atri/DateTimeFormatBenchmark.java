@@ -0,0 +1,75 @@
+package atri;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building a formatter on every call (the old code), a cached formatter, and the
+ * {@link DateTimeFormats} fast path, for both parsing and formatting.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DateTimeFormatBenchmark {
+    private final String input = "2024-12-25 1800";
+    private final LocalDateTime dateTime = LocalDateTime.of(2024, 12, 25, 18, 0);
+
+    @Benchmark
+    public LocalDateTime parsePerCallFormatter() {
+        return LocalDateTime.parse(input, DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"));
+    }
+
+    @Benchmark
+    public LocalDateTime parseCachedFormatter() {
+        return LocalDateTime.parse(input, DateTimeFormats.INPUT_FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDateTime parseFastPath() {
+        return DateTimeFormats.parseInput(input);
+    }
+
+    @Benchmark
+    public String formatInputPerCallFormatter() {
+        return dateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"));
+    }
+
+    @Benchmark
+    public String formatInputCachedFormatter() {
+        return dateTime.format(DateTimeFormats.INPUT_FORMATTER);
+    }
+
+    @Benchmark
+    public String formatInputFastPath() {
+        return DateTimeFormats.formatInput(dateTime);
+    }
+
+    @Benchmark
+    public String formatDisplayPerCallFormatter() {
+        return dateTime.format(DateTimeFormatter.ofPattern("MMM dd yyyy HHmm"));
+    }
+
+    @Benchmark
+    public String formatDisplayCachedFormatter() {
+        return dateTime.format(DateTimeFormats.DISPLAY_FORMATTER);
+    }
+
+    @Benchmark
+    public String formatDisplayFastPath() {
+        return DateTimeFormats.formatDisplay(dateTime);
+    }
+}
@@ -0,0 +1,65 @@
+package atri;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the indexed find against the linear scan it replaced, on a million tasks,
+ * for a rare keyword, a common one, a keyword with no matches and short ones as typed at the start of a query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FindBenchmark {
+    @Param({"1000000"})
+    private int taskCount;
+
+    @Param({"report 123457", "meeting", "holiday", "77", "m", "me"})
+    private String keyword;
+
+    private TaskList taskList;
+
+    /**
+     * Builds the task list and its index.
+     */
+    @Setup
+    public void setUp() {
+        taskList = new TaskList(new ArrayList<>(SnapshotFormatBenchmark.createTasks(taskCount)));
+        taskList.findTasks("warm up the index");
+    }
+
+    @Benchmark
+    public List<Task> findIndexed() {
+        return taskList.findTasks(keyword);
+    }
+
+    /**
+     * Finds tasks the way it was done before the index, as a baseline.
+     */
+    @Benchmark
+    public List<Task> findLinear() {
+        ArrayList<Task> matchingTasks = new ArrayList<>();
+        for (Task task : taskList.getTasks()) {
+            if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
+                matchingTasks.add(task);
+            }
+        }
+        return matchingTasks;
+    }
+}
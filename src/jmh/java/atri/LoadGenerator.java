@@ -0,0 +1,156 @@
+package atri;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Drives a running {@link Server} with many clients and reports throughput and latency.
+ * A number of connections are opened and left idle for the whole run, as many desktop clients would be,
+ * while the active clients each send a mix of list, find and todo commands, keeping up to
+ * {@code --pipeline} of them in flight. Latency is measured from sending a command to reading its response.
+ *
+ * <p>Example: {@code ./gradlew loadTest --args="--idle 5000 --clients 64 --pipeline 32"}. Opening thousands
+ * of connections may need a higher open file limit ({@code ulimit -n}) for both processes.
+ */
+public class LoadGenerator {
+    private static final String USAGE = "Usage: LoadGenerator [--port <n> | --socket <path>] [--idle <connections>]"
+            + " [--clients <n>] [--commands <per client>] [--pipeline <depth>]";
+    /** Four reads for every write, roughly what an interactive user does. */
+    private static final String[] COMMANDS = {
+        "list --limit 20", "find report", "list 2 --limit 20", "find chapter", "todo load test"
+    };
+
+    private final SocketAddress address;
+    private final int commandsPerClient;
+    private final int pipelineDepth;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private LoadGenerator(SocketAddress address, int commandsPerClient, int pipelineDepth) {
+        this.address = address;
+        this.commandsPerClient = commandsPerClient;
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    /**
+     * Runs the load test described by the arguments and prints its results.
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) throws Exception {
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Server.DEFAULT_PORT);
+        int idleCount = 200;
+        int clientCount = 16;
+        int commandsPerClient = 10_000;
+        int pipelineDepth = 16;
+        try {
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                case "--port" -> address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(value));
+                case "--socket" -> address = UnixDomainSocketAddress.of(value);
+                case "--idle" -> idleCount = Integer.parseInt(value);
+                case "--clients" -> clientCount = Integer.parseInt(value);
+                case "--commands" -> commandsPerClient = Integer.parseInt(value);
+                case "--pipeline" -> pipelineDepth = Math.max(1, Integer.parseInt(value));
+                default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (args.length % 2 != 0) {
+                throw new IllegalArgumentException(args[args.length - 1]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        new LoadGenerator(address, commandsPerClient, pipelineDepth).run(idleCount, clientCount);
+    }
+
+    private void run(int idleCount, int clientCount) throws Exception {
+        List<SocketChannel> idleConnections = new ArrayList<>(idleCount);
+        ExecutorService clients = Server.newThreadPerTaskExecutor("atri-load");
+        try {
+            long openStart = System.nanoTime();
+            for (int i = 0; i < idleCount; i++) {
+                SocketChannel connection = SocketChannel.open(address);
+                idleConnections.add(connection);
+                Server.readResponse(reader(connection));
+            }
+            System.out.printf("Opened %d idle connections in %d ms%n", idleCount,
+                    (System.nanoTime() - openStart) / 1_000_000);
+
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>(clientCount);
+            for (int i = 0; i < clientCount; i++) {
+                results.add(clients.submit(() -> {
+                    runClient();
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            long commandCount = latencies.getCount();
+            System.out.printf("%d clients sent %d commands in %d ms: %.0f commands/s%n", clientCount,
+                    commandCount, elapsed / 1_000_000, commandCount * 1e9 / elapsed);
+            System.out.printf("Latency p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                    latencies.getPercentile(0.5) / 1e6, latencies.getPercentile(0.99) / 1e6,
+                    latencies.getPercentile(0.999) / 1e6, latencies.getMax() / 1e6);
+        } finally {
+            clients.shutdownNow();
+            for (SocketChannel connection : idleConnections) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Sends this client's commands, keeping up to the pipeline depth of them unanswered, then says bye.
+     */
+    private void runClient() throws IOException {
+        try (SocketChannel connection = SocketChannel.open(address)) {
+            BufferedReader in = reader(connection);
+            OutputStream out = Channels.newOutputStream(connection);
+            Server.readResponse(in);
+            ArrayDeque<Long> sendTimes = new ArrayDeque<>(pipelineDepth);
+            int sent = 0;
+            StringBuilder batch = new StringBuilder();
+            for (int received = 0; received < commandsPerClient; received++) {
+                while (sent < commandsPerClient && sendTimes.size() < pipelineDepth) {
+                    batch.append(COMMANDS[sent++ % COMMANDS.length]).append('\n');
+                    sendTimes.add(System.nanoTime());
+                }
+                if (!batch.isEmpty()) {
+                    out.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+                    batch.setLength(0);
+                }
+                if (Server.readResponse(in) == null) {
+                    throw new IOException("The server hung up after " + received + " responses");
+                }
+                latencies.record(System.nanoTime() - sendTimes.remove());
+            }
+            out.write("bye\n".getBytes(StandardCharsets.UTF_8));
+            Server.readResponse(in);
+        }
+    }
+
+    private static BufferedReader reader(SocketChannel connection) {
+        return new BufferedReader(new InputStreamReader(Channels.newInputStream(connection), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,139 @@
+package atri;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares saving and loading a large task list in the text and binary snapshot formats,
+ * and the memory-mapped text reader against reading the file line by line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class SnapshotFormatBenchmark {
+    @Param({"1000000"})
+    private int taskCount;
+
+    private List<Task> tasks;
+    private Path directory;
+    private Path textFile;
+    private Path binaryFile;
+    private Storage.TaskParser parser;
+
+    /**
+     * Builds a mix of todos, deadlines and events and writes it once in each format.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        tasks = createTasks(taskCount);
+        directory = Files.createTempDirectory("atri-bench");
+        textFile = directory.resolve("atri.txt");
+        binaryFile = directory.resolve("atri.bin");
+        parser = new Storage.TaskParser();
+        TextSnapshot.write(textFile, tasks);
+        BinarySnapshot.write(binaryFile, tasks);
+    }
+
+    /**
+     * Deletes the benchmark files.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void saveText() throws IOException {
+        TextSnapshot.write(textFile, tasks);
+    }
+
+    @Benchmark
+    public void saveBinary() throws IOException {
+        BinarySnapshot.write(binaryFile, tasks);
+    }
+
+    @Benchmark
+    public List<Task> loadText() throws IOException {
+        return TextSnapshot.read(textFile, parser);
+    }
+
+    /**
+     * Loads the text snapshot the way it was loaded before the memory-mapped reader, as a baseline.
+     */
+    @Benchmark
+    public List<Task> loadTextByLines() throws IOException {
+        try (Stream<String> lines = Files.lines(textFile)) {
+            return new ArrayList<>(lines.filter(line -> !line.startsWith(TextSnapshot.TRAILER_PREFIX))
+                    .map(parser::parseTaskLine)
+                    .filter(Objects::nonNull)
+                    .toList());
+        }
+    }
+
+    @Benchmark
+    public List<Task> loadBinary() throws IOException {
+        return BinarySnapshot.read(binaryFile);
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     */
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Returns the given number of tasks: a third each of todos, deadlines and events, half of them done.
+     */
+    static List<Task> createTasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(createTask(i));
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the i-th task of the benchmark lists: a to-do, deadline or event in turn, every other one done.
+     */
+    static Task createTask(int i) {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 9, 0).plusMinutes(i * 7L);
+        Task task = switch (i % 3) {
+        case 0 -> new ToDo("read chapter " + i + " of the book");
+        case 1 -> new Deadline("submit report " + i, time);
+        default -> new Event("project meeting " + i, time, time.plusHours(1));
+        };
+        if (i % 2 == 0) {
+            task.markDone();
+        }
+        return task;
+    }
+}
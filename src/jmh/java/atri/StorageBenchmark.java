@@ -0,0 +1,102 @@
+package atri;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading and saving through {@link Storage}, snapshot and journal included.
+ * The cold benchmarks run once per fresh JVM, as at startup; the warm ones after the JIT has settled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    private Path directory;
+    private Path dataFile;
+    private TaskList taskList;
+
+    /**
+     * Writes a snapshot of the tasks with a journal of a thousand changes on top.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("atri-bench");
+        dataFile = directory.resolve("atri.txt");
+        taskList = new TaskList(new ArrayList<>(SnapshotFormatBenchmark.createTasks(taskCount)));
+        Storage storage = createStorage();
+        storage.saveTasks(taskList);
+        taskList.setListener(storage);
+        for (int i = 0; i < 1000; i++) {
+            taskList.markTaskDone(i % taskList.getSize());
+        }
+        storage.close();
+        taskList.setListener(null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SnapshotFormatBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public List<Task> load() {
+        return createStorage().loadTasks();
+    }
+
+    @Benchmark
+    @Fork(value = 5, jvmArgsAppend = "-Xmx4g")
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public List<Task> loadCold() {
+        return createStorage().loadTasks();
+    }
+
+    /**
+     * Saves to a separate file, so that the snapshot and journal being loaded stay as they are.
+     */
+    @Benchmark
+    public void save() {
+        Storage storage = new Storage(directory.resolve("saved.txt"));
+        storage.setQuiet(true);
+        storage.saveTasks(taskList);
+        storage.close();
+    }
+
+    @Benchmark
+    @Fork(value = 5, jvmArgsAppend = "-Xmx4g")
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void saveCold() {
+        save();
+    }
+
+    private Storage createStorage() {
+        Storage storage = new Storage(dataFile);
+        storage.setQuiet(true);
+        storage.setSynchronous(true);
+        return storage;
+    }
+}
@@ -0,0 +1,89 @@
+package atri;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the object and columnar task stores on a very large list: the heap each task takes, which the
+ * setup prints as "bytes per task", and how fast a find without the index, a select over every task and a
+ * page of the list run. The find scans every description, as the first find on a freshly loaded list does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskStoreBenchmark {
+    /** Tasks are made and added this many at a time, so that only the store holds all of them. */
+    private static final int BATCH_SIZE = 100_000;
+
+    @Param({"10000000"})
+    private int taskCount;
+
+    @Param({"objects", "columnar"})
+    private String store;
+
+    private TaskList taskList;
+    private int nextPage;
+
+    /**
+     * Fills the list and prints how much heap it takes per task.
+     */
+    @Setup
+    public void setUp() {
+        long usedBefore = usedHeapAfterGc();
+        taskList = new TaskList(store.equals("columnar")
+                ? ColumnarTaskStore.from(new ArrayList<>())
+                : new ObjectTaskStore(new ArrayList<>()));
+        for (int from = 0; from < taskCount; from += BATCH_SIZE) {
+            List<Task> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = from; i < Math.min(taskCount, from + BATCH_SIZE); i++) {
+                batch.add(SnapshotFormatBenchmark.createTask(i));
+            }
+            taskList.addTasks(batch);
+        }
+        long usedAfter = usedHeapAfterGc();
+        System.out.printf("%n%s store: %.1f bytes per task%n", store, (usedAfter - usedBefore) / (double) taskCount);
+    }
+
+    @Benchmark
+    public List<Task> scan() {
+        return taskList.scanTasks("report 100");
+    }
+
+    @Benchmark
+    public BitSet selectDone() {
+        return taskList.selectTasks(Task::isDone);
+    }
+
+    @Benchmark
+    public List<Task> listPage() {
+        nextPage = (nextPage + 7919) % (taskCount / 100);
+        return taskList.getTasks(nextPage * 100, nextPage * 100 + 100);
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,294 @@
+package atri;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps done tasks moved out of the task list in a file of their own, read through a memory mapping, so that
+ * archived tasks take no heap until they are searched and are not rewritten by every snapshot.
+ *
+ * <p>The file starts with {@code ATRA} and a version byte, followed by one record per task: its type
+ * ({@code 'T'}, {@code 'D'} or {@code 'E'}), a done byte, the length of its UTF-8 description as an int, the
+ * description, and the due date of a deadline or the start and end of an event in epoch minutes. Records are
+ * only appended, and each append is forced to disk before it returns. A record cut short by a crash is dropped
+ * when the archive is opened.
+ *
+ * <p>Archived tasks are numbered from 1 in the order they were archived; their ids in the task list are not
+ * kept. Every method may be called from any thread.
+ */
+class Archive implements Closeable {
+    private static final byte[] MAGIC = {'A', 'T', 'R', 'A'};
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+    /** Type, done byte and description length. */
+    private static final int RECORD_HEADER_LENGTH = 6;
+
+    private final Path file;
+    /** Open from the first use until {@link #close}. */
+    private FileChannel channel;
+    /** Read-only mapping of the file, remapped once records are appended past its end. */
+    private MappedByteBuffer mapped;
+    /** Position of each record in the file. */
+    private long[] recordOffsets = new long[16];
+    private int count;
+    /** End of the last complete record, where the next one is written. */
+    private long size;
+    /** Built by the first search; null until then. */
+    private TaskIndex index;
+
+    /**
+     * Constructs an archive kept in the given file, which is created when first used.
+     *
+     * @param file The archive file.
+     */
+    Archive(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the file holding the archive.
+     */
+    Path getPath() {
+        return file;
+    }
+
+    /**
+     * Returns the number of archived tasks.
+     *
+     * @throws IOException If the archive cannot be opened.
+     */
+    synchronized int getSize() throws IOException {
+        open();
+        return count;
+    }
+
+    /**
+     * Appends tasks to the archive and forces them to disk.
+     *
+     * @param tasks The tasks to archive, in list order.
+     * @throws IOException If the tasks could not all be written, in which case none of them are archived.
+     */
+    synchronized void append(List<Task> tasks) throws IOException {
+        open();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        long[] offsets = new long[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            offsets[i] = size + out.size();
+            writeTask(out, tasks.get(i));
+        }
+        if (size + out.size() > Integer.MAX_VALUE) {
+            throw new IOException("The archive " + file + " is full");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            for (long position = size; buffer.hasRemaining(); ) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            channel.truncate(size); // Best effort; a partial record left behind is dropped on the next open.
+            throw e;
+        }
+        size += out.size();
+        for (int i = 0; i < tasks.size(); i++) {
+            addRecord(offsets[i]);
+            if (index != null) {
+                index.add(readTask(count - 1));
+            }
+        }
+    }
+
+    /**
+     * Returns the archived tasks whose description contains the keyword, ignoring case, in the order they were
+     * archived. The first search reads every archived task to index them.
+     *
+     * @param keyword The keyword to look for.
+     * @throws IOException If the archive cannot be opened.
+     */
+    synchronized ArrayList<Task> find(String keyword) throws IOException {
+        open();
+        if (index == null) {
+            index = new TaskIndex();
+            for (int record = 0; record < count; record++) {
+                index.add(readTask(record));
+            }
+        }
+        ArrayList<Task> matches = index.find(keyword, id -> readTask(id - 1));
+        if (matches != null) {
+            return matches;
+        }
+        String query = keyword.toLowerCase();
+        matches = new ArrayList<>();
+        for (int record = 0; record < count; record++) {
+            Task task = readTask(record);
+            if (task.getDescription().toLowerCase().contains(query)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Unmaps and closes the file. Using the archive again reopens it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        channel = null;
+        mapped = null;
+        index = null;
+        count = 0;
+        size = 0;
+    }
+
+    /**
+     * Opens the file if it is not open yet, writing the header into a new one, and finds its records.
+     */
+    private void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (opened.size() < HEADER_LENGTH) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put((byte) VERSION).flip();
+                opened.truncate(0);
+                opened.write(header, 0);
+                opened.force(false);
+            }
+            if (opened.size() > Integer.MAX_VALUE) {
+                throw new IOException("The archive " + file + " is too large");
+            }
+            channel = opened;
+            size = opened.size();
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            findRecords();
+        } catch (IOException e) {
+            channel = null;
+            opened.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks the header and records the position of every record, dropping a last record cut short by a crash.
+     */
+    private void findRecords() throws IOException {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (mapped.get(i) != MAGIC[i]) {
+                throw new IOException(file + " is not a task archive");
+            }
+        }
+        if (mapped.get(MAGIC.length) != VERSION) {
+            throw new IOException("Unsupported archive version " + mapped.get(MAGIC.length));
+        }
+        long offset = HEADER_LENGTH;
+        while (offset < size) {
+            long end = endOfRecord(offset);
+            if (end < 0) {
+                System.out.println("Warning: " + file + " is truncated or damaged after task " + count);
+                channel.truncate(offset);
+                size = offset;
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                break;
+            }
+            addRecord(offset);
+            offset = end;
+        }
+    }
+
+    /**
+     * Returns where the record at the offset ends, or -1 if it is damaged or runs past the end of the file.
+     */
+    private long endOfRecord(long offset) {
+        if (offset + RECORD_HEADER_LENGTH > size) {
+            return -1;
+        }
+        int position = (int) offset;
+        int dateCount = switch (mapped.get(position)) {
+        case 'T' -> 0;
+        case 'D' -> 1;
+        case 'E' -> 2;
+        default -> -1;
+        };
+        int length = mapped.getInt(position + 2);
+        if (dateCount < 0 || length < 0) {
+            return -1;
+        }
+        long end = offset + RECORD_HEADER_LENGTH + length + (long) dateCount * Long.BYTES;
+        return end > size ? -1 : end;
+    }
+
+    private void addRecord(long offset) {
+        if (count == recordOffsets.length) {
+            recordOffsets = Arrays.copyOf(recordOffsets, count * 2);
+        }
+        recordOffsets[count++] = offset;
+    }
+
+    /**
+     * Decodes an archived task from the mapping, remapping the file first if the record was appended after it.
+     */
+    private Task readTask(int record) {
+        if (mapped.capacity() < size) {
+            try {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map " + file, e);
+            }
+        }
+        int position = (int) recordOffsets[record];
+        byte type = mapped.get(position);
+        boolean isDone = mapped.get(position + 1) == 1;
+        byte[] bytes = new byte[mapped.getInt(position + 2)];
+        mapped.get(position + RECORD_HEADER_LENGTH, bytes);
+        String description = new String(bytes, StandardCharsets.UTF_8);
+        int dates = position + RECORD_HEADER_LENGTH + bytes.length;
+
+        Task task = switch (type) {
+        case 'T' -> new ToDo(description);
+        case 'D' -> new Deadline(description, DateTimeFormats.fromEpochMinute(mapped.getLong(dates)));
+        default -> new Event(description, DateTimeFormats.fromEpochMinute(mapped.getLong(dates)),
+                DateTimeFormats.fromEpochMinute(mapped.getLong(dates + Long.BYTES)));
+        };
+        task.setId(record + 1);
+        if (isDone) {
+            task.markDone();
+        }
+        return task;
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeByte(task.getTaskType().charAt(0));
+        out.writeByte(task.isDone() ? 1 : 0);
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(description.length);
+        out.write(description);
+        if (task instanceof Deadline deadline) {
+            out.writeLong(DateTimeFormats.toEpochMinute(deadline.getBy()));
+        } else if (task instanceof Event event) {
+            out.writeLong(DateTimeFormats.toEpochMinute(event.getFrom()));
+            out.writeLong(DateTimeFormats.toEpochMinute(event.getTo()));
+        }
+    }
+}
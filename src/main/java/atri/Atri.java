@@ -1,11 +1,21 @@
 package atri;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import javafx.application.Platform;
 /**
  * Represents the main Duke application.
  * This class initializes the necessary components (Ui, Storage, TaskList)
@@ -13,18 +23,106 @@ import javafx.application.Platform;
  * Uses streams where appropriate.
  */
 public class Atri {
+    private static final Pattern PERIOD_PATTERN = Pattern.compile("(\\d{1,6})\\s*([hdw])");
 
     private final Ui ui;
     private final Storage storage;
     private final TaskList taskList;
+    private final CommandTable commands = new CommandTable();
+    /** The page shown by the last command if it was list, otherwise null. */
+    private TaskListPage listedPage;
+    /** The page shown by the last list command, shown again while the list is unchanged. */
+    private TaskListPage lastListedPage;
+    private boolean isExit;
 
     /**
      * Constructs a new Atri instance.
      */
     public Atri() {
-        ui = new Ui();
-        storage = new Storage();
-        taskList = new TaskList(storage.loadTasks());
+        this(new Storage());
+    }
+
+    /**
+     * Constructs an Atri instance that loads and saves its tasks through the given storage.
+     *
+     * @param storage The storage to use, not yet loaded.
+     */
+    Atri(Storage storage) {
+        this(storage, new TaskList(TaskStore.of(storage.loadTasks())));
+        archiveOnStartup();
+        Runtime.getRuntime().addShutdownHook(new Thread(storage::close, "atri-shutdown"));
+    }
+
+    /**
+     * Constructs an Atri instance for one of several front ends sharing a task list, each calling
+     * {@link #getResponse} on its own thread. The list should then be a {@link ConcurrentTaskList}.
+     * Each front end keeps its own last listed page and exit state; the owner of the storage closes it.
+     *
+     * @param storage  The storage the tasks were loaded from, which journals every change.
+     * @param taskList The tasks to work on.
+     */
+    Atri(Storage storage, TaskList taskList) {
+        this.ui = new Ui();
+        this.storage = storage;
+        this.taskList = taskList;
+        taskList.setListener(storage);
+        registerCommands();
+    }
+
+    /**
+     * Registers the built-in commands.
+     */
+    private void registerCommands() {
+        registerCommand("bye", command -> handleBye());
+        registerCommand("list", command -> handleList(command.text()));
+        registerCommand("mark", command -> handleMark(command.text()));
+        registerCommand("unmark", command -> handleUnmark(command.text()));
+        registerCommand("todo", command -> handleTodo(command.text(), command.commandLine()));
+        registerCommand("deadline", this::handleDeadline, "/by");
+        registerCommand("event", this::handleEvent, "/from", "/to");
+        registerCommand("delete", command -> handleDelete(command.text()));
+        registerCommand("find", command -> handleFind(command.text()));
+        registerCommand("due", command -> handleDue(command.text(), command.commandLine()));
+        registerCommand("upcoming", command -> handleUpcoming(command.text()));
+        registerCommand("overlap", command -> handleOverlap(command.text(), command.commandLine()));
+        registerCommand("overdue", command -> handleOverdue());
+        registerCommand("archive", command -> handleArchive(command.text()));
+        registerCommand("undo", command -> handleUndo(false));
+        registerCommand("redo", command -> handleUndo(true));
+        registerCommand("migrate", command -> handleMigrate(command.text()));
+        registerCommand("import", command -> handleImport(command.text()));
+        registerCommand("export", command -> handleExport(command.text()));
+        registerCommand("stats", command -> handleStats(command.text()));
+        registerCommand("help", command -> handleHelp());
+    }
+
+    /**
+     * Adds a command, or replaces the one with the same name.
+     *
+     * @param name    The name typed to run the command, in lower case.
+     * @param handler What the command does, given the parsed command line.
+     * @param flags   The flags its arguments may contain, e.g. {@code "/by"}.
+     */
+    void registerCommand(String name, CommandTable.Handler handler, String... flags) {
+        commands.register(name, handler, flags);
+    }
+
+    /**
+     * Makes undo and redo refuse to run, for a front end whose task list other front ends also change. The list
+     * keeps one history of everyone's changes, so an undo could reverse a change made by another front end.
+     */
+    void disableUndo() {
+        registerCommand("undo", command -> ui.getUndoUnavailableMessage());
+        registerCommand("redo", command -> ui.getUndoUnavailableMessage());
+    }
+
+    /**
+     * Handles the "bye" command.
+     */
+    private String handleBye() {
+        storage.flush();
+        isExit = true;
+        return ui.getGoodbyeMessage();
     }
 
     /**
@@ -35,6 +133,9 @@ public class Atri {
             taskList.markTaskDone(taskIndex);
             Task task = taskList.getTask(taskIndex);
             return ui.getTaskMarkedMessage(task);
+        }, taskIndices -> {
+            taskList.markTasks(taskIndices, true);
+            return ui.getTasksMarkedMessage(taskIndices.cardinality(), true);
         });
     }
 
@@ -46,6 +147,9 @@ public class Atri {
             taskList.markTaskUndone(taskIndex);
             Task task = taskList.getTask(taskIndex);
             return ui.getTaskUnmarkedMessage(task);
+        }, taskIndices -> {
+            taskList.markTasks(taskIndices, false);
+            return ui.getTasksMarkedMessage(taskIndices.cardinality(), false);
         });
     }
 
@@ -57,30 +161,83 @@ public class Atri {
             Task taskToDelete = taskList.getTask(taskIndex); // get task before deletion
             taskList.deleteTask(taskIndex); // delete task
             return ui.getTaskDeletedMessage(taskToDelete, taskList.getSize());
+        }, taskIndices -> {
+            taskList.deleteTasks(taskIndices);
+            return ui.getTasksDeletedMessage(taskIndices.cardinality(), taskList.getSize());
         });
     }
 
     /**
      * Handles task index operations (mark, unmark, delete) using a common method with streams.
-     * The lambda provided returns a string message describing the outcome.
+     * The tasks are picked by a {@link TaskSelection}: a task number, an id written as {@code #<id>},
+     * a list of these and ranges, or a condition. A single task goes to the first lambda; several go to
+     * the second, which changes them all in one pass so the command is persisted as one journal record.
+     * The lambdas provided return a string message describing the outcome.
      *
-     * @param arguments The argument string representing the task number.
-     * @param command   The command name (e.g., "mark", "unmark", "delete").
-     * @param operation The lambda operation that performs the task index operation.
+     * @param arguments     The argument string selecting the tasks.
+     * @param command       The command name (e.g., "mark", "unmark", "delete").
+     * @param operation     The lambda operation that performs the operation on a single task.
+     * @param bulkOperation The lambda operation that performs the operation on several tasks.
      * @return A message indicating success or an error message if input is invalid.
      */
     private String handleTaskIndexOperation(String arguments, String command,
-                                            TaskIndexOperation operation) {
+                                            TaskIndexOperation operation, TaskSelectionOperation bulkOperation) {
+        // Task numbers are resolved and acted on in one step, so another front end cannot shift them in between.
+        return taskList.update(() -> {
+            BitSet taskIndices = TaskSelection.parse(arguments, taskList);
+            if (taskIndices == null) {
+                return ui.getInvalidInputError(arguments, command + " <task_number|#id>[,...] | "
+                        + command + " <from>-<to> | " + command + " all | " + command + " done | "
+                        + command + " /before <yyyy-MM-dd>");
+            }
+            if (taskIndices.isEmpty()) {
+                return ui.getNoTasksSelectedMessage(arguments);
+            }
+            if (taskIndices.cardinality() == 1) {
+                return operation.perform(taskIndices.nextSetBit(0));
+            }
+            return bulkOperation.perform(taskIndices);
+        });
+    }
+
+    /**
+     * Handles the "list" command, which shows one page of the task list.
+     * Only the tasks on that page are copied and rendered, and listing the same page of an unchanged list again
+     * reuses both.
+     */
+    private String handleList(String arguments) {
+        String usage = "list [page] [--limit <count>] [--ids]";
+        int pageNumber = 1;
+        int pageSize = TaskListPage.DEFAULT_PAGE_SIZE;
+        boolean showsIds = false;
+        String[] tokens = arguments.trim().split("\\s+");
         try {
-            int taskIndex = Integer.parseInt(arguments.trim()) - 1;
-            if (isValidTaskIndex(taskIndex)) {
-                return operation.perform(taskIndex);
-            } else {
-                return ui.getInvalidInputError(arguments, command + " <task_number>");
+            for (int i = 0; i < tokens.length; i++) {
+                if (tokens[i].equals("--limit") && i + 1 < tokens.length) {
+                    pageSize = Integer.parseInt(tokens[++i]);
+                } else if (tokens[i].equals("--ids")) {
+                    showsIds = true;
+                } else if (!tokens[i].isEmpty()) {
+                    pageNumber = Integer.parseInt(tokens[i]);
+                }
             }
         } catch (NumberFormatException e) {
-            return ui.getInvalidInputError(arguments, command + " <task_number>");
+            return ui.getInvalidInputError(arguments, usage);
+        }
+        if (pageNumber < 1 || pageSize < 1) {
+            return ui.getInvalidInputError(arguments, usage);
+        }
+
+        TaskListPage page = lastListedPage;
+        if (page == null || !page.isSame(pageNumber, pageSize, showsIds, taskList.getVersion())) {
+            page = TaskListPage.of(taskList, pageNumber, pageSize, showsIds);
         }
+        if (pageNumber > page.pageCount()) {
+            return ui.getPageOutOfRangeError(pageNumber, page.pageCount());
+        }
+        listedPage = page;
+        lastListedPage = page;
+        return ui.getTaskListPage(page);
     }
 
     /**
@@ -91,7 +248,7 @@ public class Atri {
         if (description.isEmpty()) {
             return ui.getEmptyDescriptionError(commandLine);
         }
-        Task newTask = new ToDo(description);
+        Task newTask = new ToDo(DescriptionPool.get().intern(description));
         taskList.addTask(newTask);
         return ui.getTaskAddedMessage(newTask, taskList.getSize());
     }
@@ -99,18 +256,16 @@ public class Atri {
     /**
      * Handles the "deadline" command.
      */
-    private String handleDeadline(String arguments, String commandLine) {
-        String[] parts = Parser.parseDeadlineArguments(arguments);
-        if (parts.length < 2) {
-            return ui.getInvalidInputError(commandLine, "deadline <description> /by <yyyy-MM-dd HHmm>");
+    private String handleDeadline(ParsedCommand command) {
+        String byString = command.flag("/by");
+        if (byString == null) {
+            return ui.getInvalidInputError(command.commandLine(), "deadline <description> /by <yyyy-MM-dd HHmm>");
         }
-        String description = parts[0].trim();
-        String byString = parts[1].trim();
         LocalDateTime by = Parser.parseDateTime(byString);
         if (by == null) {
-            return ui.getInvalidDateError(commandLine, "deadline <description> /by <yyyy-MM-dd HHmm>");
+            return ui.getInvalidDateError(command.commandLine(), "deadline <description> /by <yyyy-MM-dd HHmm>");
         }
-        Task newTask = new Deadline(description, by);
+        Task newTask = new Deadline(DescriptionPool.get().intern(command.description()), by);
         taskList.addTask(newTask);
         return ui.getTaskAddedMessage(newTask, taskList.getSize());
     }
@@ -118,46 +273,283 @@ public class Atri {
     /**
      * Handles the "event" command.
      */
-    private String handleEvent(String arguments, String commandLine) {
-        String[] parts = Parser.parseEventArguments(arguments);
-        if (parts.length < 3) {
-            return ui.getInvalidInputError(commandLine, "event <description> "
+    private String handleEvent(ParsedCommand command) {
+        String fromString = command.flag("/from");
+        String toString = command.flag("/to");
+        if (fromString == null || toString == null) {
+            return ui.getInvalidInputError(command.commandLine(), "event <description> "
                     + "/from <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm>");
         }
-        String description = parts[0].trim();
-        String fromString = parts[1].trim();
-        String toString = parts[2].trim();
         LocalDateTime from = Parser.parseDateTime(fromString);
         LocalDateTime to = Parser.parseDateTime(toString);
         if (from == null || to == null) {
-            return ui.getInvalidDateError(commandLine, "event <description> /from <yyyy-MM-dd HHmm>"
+            return ui.getInvalidDateError(command.commandLine(), "event <description> /from <yyyy-MM-dd HHmm>"
                     + " /to <yyyy-MM-dd HHmm>");
         }
-        Task newTask = new Event(description, from, to);
+        Task newTask = new Event(DescriptionPool.get().intern(command.description()), from, to);
         taskList.addTask(newTask);
         return ui.getTaskAddedMessage(newTask, taskList.getSize());
     }
 
     /**
-     * Handles the "find" command using streams.
+     * Handles the "find" command using streams. {@code find --all <keyword>} also searches the archive.
      */
     private String handleFind(String keyword) {
+        if (keyword.equals("--all") || keyword.startsWith("--all ")) {
+            String query = keyword.substring("--all".length()).trim();
+            try {
+                List<Task> archivedTasks = storage.getArchive().find(query);
+                return ui.getMatchingTasksMessage(taskList.findTasks(query), archivedTasks);
+            } catch (IOException e) {
+                return ui.getArchiveError(e);
+            }
+        }
         ArrayList<Task> matchingTasks = taskList.findTasks(keyword);
         return ui.getMatchingTasksMessage(matchingTasks);
     }
 
     /**
-     * Handles the "help" command.
+     * Handles the "due" command, which lists the deadlines due on a date.
      */
-    private String handleHelp() {
-        return ui.getHelpMessage();
+    private String handleDue(String arguments, String commandLine) {
+        LocalDate date = Parser.parseDate(arguments.trim());
+        if (date == null) {
+            return ui.getInvalidDateError(commandLine, "due <yyyy-MM-dd>");
+        }
+        List<Task> tasks = taskList.findTasksDue(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        return ui.getTasksDueMessage(date, tasks);
     }
 
     /**
-     * Checks if the given task index is valid.
+     * Handles the "upcoming" command, which lists the deadlines and events in a period starting now,
+     * e.g. {@code upcoming 7d}. The period is a number of hours, days or weeks, and a week by default.
      */
-    private boolean isValidTaskIndex(int index) {
-        return index >= 0 && index < taskList.getSize();
+    private String handleUpcoming(String arguments) {
+        Matcher matcher = PERIOD_PATTERN.matcher(arguments.trim());
+        if (!arguments.isBlank() && !matcher.matches()) {
+            return ui.getInvalidInputError(arguments, "upcoming [<count>h|<count>d|<count>w]");
+        }
+        long amount = arguments.isBlank() ? 7 : Long.parseLong(matcher.group(1));
+        ChronoUnit unit = arguments.isBlank() ? ChronoUnit.DAYS : toUnit(matcher.group(2));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end;
+        try {
+            end = now.plus(amount, unit);
+        } catch (DateTimeException | ArithmeticException e) {
+            return ui.getInvalidInputError(arguments, "upcoming [<count>h|<count>d|<count>w]");
+        }
+        return ui.getUpcomingTasksMessage(amount, unit, taskList.findTasksBetween(now, end));
+    }
+
+    /**
+     * Returns the unit of a period such as {@code 7d}.
+     */
+    private static ChronoUnit toUnit(String unit) {
+        return switch (unit) {
+        case "h" -> ChronoUnit.HOURS;
+        case "w" -> ChronoUnit.WEEKS;
+        default -> ChronoUnit.DAYS;
+        };
+    }
+
+    /**
+     * Handles the "overlap" command, which lists the deadlines and events between two dates, inclusive.
+     * The bounds are either two dates, covering whole days, or two dates with times.
+     */
+    private String handleOverlap(String arguments, String commandLine) {
+        String usage = "overlap <yyyy-MM-dd> <yyyy-MM-dd> | overlap <yyyy-MM-dd HHmm> <yyyy-MM-dd HHmm>";
+        String[] tokens = arguments.trim().split("\\s+");
+        LocalDateTime from;
+        LocalDateTime to;
+        if (tokens.length == 2) {
+            LocalDate firstDay = Parser.parseDate(tokens[0]);
+            LocalDate lastDay = Parser.parseDate(tokens[1]);
+            from = firstDay == null ? null : firstDay.atStartOfDay();
+            to = lastDay == null ? null : lastDay.plusDays(1).atStartOfDay();
+        } else if (tokens.length == 4) {
+            from = Parser.parseDateTime(tokens[0] + " " + tokens[1]);
+            LocalDateTime last = Parser.parseDateTime(tokens[2] + " " + tokens[3]);
+            to = last == null ? null : last.plusMinutes(1);
+        } else {
+            return ui.getInvalidInputError(arguments, usage);
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            return ui.getInvalidDateError(commandLine, usage);
+        }
+        int half = tokens.length / 2;
+        return ui.getOverlappingTasksMessage(String.join(" ", List.of(tokens).subList(0, half)),
+                String.join(" ", List.of(tokens).subList(half, tokens.length)), taskList.findTasksBetween(from, to));
+    }
+
+    /**
+     * Handles the "overdue" command, which lists the deadlines that have passed but are not done.
+     */
+    private String handleOverdue() {
+        return ui.getOverdueTasksMessage(taskList.findOverdueTasks(LocalDateTime.now()));
+    }
+
+    /**
+     * Handles the "archive" command, which moves done tasks out of the list into the archive. Given a period,
+     * e.g. {@code archive 30d}, only the done deadlines and events whose date passed longer ago than that are
+     * moved; to-dos have no date and stay.
+     */
+    private String handleArchive(String arguments) {
+        String usage = "archive [<count>h|<count>d|<count>w]";
+        Predicate<Task> isArchived = Task::isDone;
+        if (!arguments.isBlank()) {
+            Matcher matcher = PERIOD_PATTERN.matcher(arguments.trim());
+            if (!matcher.matches()) {
+                return ui.getInvalidInputError(arguments, usage);
+            }
+            LocalDateTime cutoff;
+            try {
+                cutoff = LocalDateTime.now().minus(Long.parseLong(matcher.group(1)), toUnit(matcher.group(2)));
+            } catch (DateTimeException | ArithmeticException e) {
+                return ui.getInvalidInputError(arguments, usage);
+            }
+            isArchived = task -> task.isDone() && task.endsBefore(cutoff);
+        }
+        Predicate<Task> selection = isArchived;
+        // Selected, archived and deleted in one step, so no other front end changes the tasks in between.
+        return taskList.update(() -> {
+            BitSet taskIndices = taskList.selectTasks(selection);
+            if (taskIndices.isEmpty()) {
+                return ui.getArchivedMessage(0, taskList.getSize());
+            }
+            List<Task> tasks = taskIndices.stream().mapToObj(taskList::getTask).toList();
+            try {
+                // On disk before the deletion is journaled: a crash in between leaves the tasks in both places.
+                storage.getArchive().append(tasks);
+            } catch (IOException e) {
+                return ui.getArchiveError(e);
+            }
+            taskList.deleteTasks(taskIndices);
+            // Undoing would bring the tasks back while the archive still holds them.
+            taskList.clearHistory();
+            return ui.getArchivedMessage(tasks.size(), taskList.getSize());
+        });
+    }
+
+    /**
+     * Archives the done tasks whose date passed longer ago than the period in the {@code atri.archiveAfter}
+     * system property, e.g. {@code -Datri.archiveAfter=30d}, and prints what was done. Does nothing if it is not
+     * set.
+     */
+    void archiveOnStartup() {
+        String period = System.getProperty("atri.archiveAfter");
+        if (period == null || period.isBlank()) {
+            return;
+        }
+        System.out.println(handleArchive(period));
+        storage.persist(taskList);
+    }
+
+    /**
+     * Handles the "undo" and "redo" commands, which take back the latest change to the task list or make
+     * the latest change taken back again.
+     */
+    private String handleUndo(boolean isRedo) {
+        History.Delta delta = isRedo ? taskList.redo() : taskList.undo();
+        if (delta == null) {
+            return ui.getNothingToUndoMessage(isRedo);
+        }
+        return ui.getUndoneMessage(isRedo, delta, taskList.getSize());
+    }
+
+    /**
+     * Handles the "migrate" command, which converts the data file to another format.
+     */
+    private String handleMigrate(String arguments) {
+        Storage.Format format;
+        try {
+            format = Storage.Format.valueOf(arguments.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ui.getInvalidInputError(arguments, "migrate <text|binary>");
+        }
+        return taskList.update(() -> {
+            storage.migrate(format, taskList);
+            return ui.getMigratedMessage(format.name().toLowerCase(Locale.ROOT), taskList.getSize());
+        });
+    }
+
+    /**
+     * Handles the "import" command, which adds every valid task in a CSV or JSON Lines file.
+     * The file is validated before any task is added, and the valid tasks are then added in one step.
+     */
+    private String handleImport(String arguments) {
+        Path file = toTransferPath(arguments);
+        if (file == null) {
+            return ui.getInvalidInputError(arguments, "import <file.csv|file.jsonl>");
+        }
+        try {
+            TaskTransfer.ImportResult result = TaskTransfer.importTasks(file, TaskTransfer.Format.of(arguments.trim()),
+                    new Storage.TaskParser());
+            taskList.addTasks(result.tasks());
+            return ui.getImportedMessage(result, taskList.getSize());
+        } catch (IOException e) {
+            return ui.getTransferError(arguments.trim(), e);
+        }
+    }
+
+    /**
+     * Handles the "export" command, which writes every task to a CSV or JSON Lines file.
+     */
+    private String handleExport(String arguments) {
+        Path file = toTransferPath(arguments);
+        if (file == null) {
+            return ui.getInvalidInputError(arguments, "export <file.csv|file.jsonl>");
+        }
+        try {
+            long startTime = System.nanoTime();
+            TaskTransfer.exportTasks(file, TaskTransfer.Format.of(arguments.trim()), taskList.getTasks());
+            return ui.getExportedMessage(taskList.getSize(), arguments.trim(), System.nanoTime() - startTime);
+        } catch (IOException e) {
+            return ui.getTransferError(arguments.trim(), e);
+        }
+    }
+
+    /**
+     * Returns the file named by an import or export command, or null if it is not a CSV or JSON Lines path.
+     */
+    private static Path toTransferPath(String arguments) {
+        String fileName = arguments.trim();
+        if (TaskTransfer.Format.of(fileName) == null) {
+            return null;
+        }
+        try {
+            return Paths.get(fileName);
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Handles the "stats" command, which shows the recorded metrics or turns recording on, off, or back to zero.
+     */
+    private String handleStats(String arguments) {
+        Metrics metrics = Metrics.get();
+        switch (arguments.trim().toLowerCase(Locale.ROOT)) {
+        case "":
+            return ui.getStatsMessage(metrics);
+        case "on":
+            metrics.setEnabled(true);
+            return ui.getStatsToggledMessage(true);
+        case "off":
+            metrics.setEnabled(false);
+            return ui.getStatsToggledMessage(false);
+        case "reset":
+            metrics.reset();
+            return ui.getStatsResetMessage();
+        default:
+            return ui.getInvalidInputError(arguments, "stats [on|off|reset]");
+        }
+    }
+
+    /**
+     * Handles the "help" command.
+     */
+    private String handleHelp() {
+        return ui.getHelpMessage();
     }
 
     /**
@@ -167,34 +559,59 @@ public class Atri {
      * @return The response string.
      */
     public String getResponse(String input) {
-        String[] parts = Parser.parseCommand(input);
-        String command = parts[0];
-        String arguments = (parts.length > 1) ? parts[1] : "";
-
-        String response = switch (command.toLowerCase()) {
-        case "bye" -> {
-            Platform.exit();
-            yield ui.getGoodbyeMessage();
-        }
-        case "list" -> IntStream.range(0, taskList.getSize())
-                .mapToObj(i -> ui.getTaskListItem(i, taskList.getTask(i)))
-                .collect(Collectors.joining("\n", ui.getTaskListMessage() + "\n", ""));
-        case "mark" -> handleMark(arguments);
-        case "unmark" -> handleUnmark(arguments);
-        case "todo" -> handleTodo(arguments, input);
-        case "deadline" -> handleDeadline(arguments, input);
-        case "event" -> handleEvent(arguments, input);
-        case "delete" -> handleDelete(arguments);
-        case "find" -> handleFind(arguments);
-        case "help" -> handleHelp();
-        default -> ui.getInvalidCommandError(input);
-        };
+        Metrics metrics = Metrics.get();
+        boolean isTimed = metrics.isEnabled();
+        long startTime = isTimed ? System.nanoTime() : 0;
+        ParsedCommand command = commands.parse(input);
+        listedPage = null;
 
-        // Save after any command that might modify the task list.
-        storage.saveTasks(taskList);
+        String commandName;
+        String response;
+        if (command == null) {
+            commandName = "(invalid)"; // One histogram for all typos, however many different ones there are.
+            response = ui.getInvalidCommandError(input);
+        } else {
+            commandName = command.name();
+            response = command.execute();
+        }
+
+        // Only commands that changed the task list touch the disk.
+        storage.persist(taskList);
+        if (isTimed) {
+            metrics.recordCommand(commandName, System.nanoTime() - startTime);
+        }
         return response;
     }
 
+    /**
+     * Returns whether the user has said bye, after which the front end should close.
+     */
+    public boolean isExit() {
+        return isExit;
+    }
+
+    /**
+     * Returns the lines of the page shown by the last command, rendered as they are read,
+     * or null if the last command was not list.
+     */
+    public List<String> getListedRows() {
+        return listedPage == null ? null : ui.getTaskListRows(listedPage);
+    }
+
+    /**
+     * Returns the header and footer of the page shown by the last command, or null if it was not list.
+     */
+    public String getListedCaption() {
+        return listedPage == null ? null : ui.getTaskListCaption(listedPage);
+    }
+
+    /**
+     * Durably writes any pending changes and stops the storage writer thread.
+     */
+    public void close() {
+        storage.close();
+    }
+
     /**
      * Returns the welcome message.
      */
@@ -205,11 +622,16 @@ public class Atri {
                    - todo <task description>
                    - deadline <task description> /by <yyyy-MM-dd HHmm>
                    - event <task description> /from <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm>
-                ✔ View tasks: list
-                ✔ Mark tasks as done: mark <task number>
-                ✔ Unmark tasks: unmark <task number>
-                ✔ Delete tasks: delete <task number>
-                ✔ Find tasks: find <keyword>
+                ✔ View tasks: list [page] [--limit <count>] [--ids]
+                ✔ Mark tasks as done: mark <task number | #id | 3,7,10-250 | all | done>
+                ✔ Unmark tasks: unmark <task number | #id | 3,7,10-250 | all | done>
+                ✔ Delete tasks: delete <task number | #id | 3,7,10-250 | all | done | /before <yyyy-MM-dd>>
+                ✔ Find tasks: find [--all] <keyword>
+                ✔ Archive done tasks: archive [30d]
+                ✔ Undo or redo changes: undo, redo
+                ✔ Check dates: due <yyyy-MM-dd>, upcoming [7d], overlap <from> <to>, overdue
+                ✔ Import or export tasks: import <file.csv|file.jsonl>, export <file.csv|file.jsonl>
+                ✔ Time commands: stats [on|off|reset]
                 ✔ Help: help
                 ✔ Exit: bye
                 Now what do you need me to do? :)
@@ -224,4 +646,13 @@ public class Atri {
     private interface TaskIndexOperation {
         String perform(int taskIndex);
     }
+
+    /**
+     * Functional interface for operations on several tasks at once.
+     * The operation returns a String message indicating the result.
+     */
+    @FunctionalInterface
+    private interface TaskSelectionOperation {
+        String perform(BitSet taskIndices);
+    }
 }
@@ -0,0 +1,246 @@
+package atri;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes the compact binary snapshot format.
+ * A file starts with the magic bytes {@code ATRB} and a format version, followed by one record per task:
+ * <pre>
+ *   type      1 byte   'T', 'D' or 'E'
+ *   done      1 byte   0 or 1
+ *   id        varint   the task's id, or 0 if it has none (version 2 on; version 1 files have no ids)
+ *   length    varint   number of bytes in the description
+ *   desc      bytes    UTF-8 description
+ *   times     8 bytes each, epoch minutes (UTC): 'by' for deadlines, 'from' and 'to' for events
+ * </pre>
+ * The records end with a zero byte, the number of tasks and the CRC32 of everything before the count.
+ */
+class BinarySnapshot {
+    private static final byte[] MAGIC = {'A', 'T', 'R', 'B'};
+    private static final byte VERSION = 2;
+    /** The first version, whose records have no id; still read so that older files load. */
+    private static final byte VERSION_WITHOUT_IDS = 1;
+    private static final int END_OF_RECORDS = 0;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** Longest description accepted when reading; a longer length can only come from a damaged file. */
+    private static final int MAX_DESCRIPTION_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Returns whether the given file starts with the binary snapshot header.
+     *
+     * @param file The file to check.
+     * @return true if the file is a binary snapshot.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isBinary(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = in.readNBytes(MAGIC.length);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (header.length != MAGIC.length || header[i] != MAGIC[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes the tasks to the given file and forces them to disk.
+     *
+     * @param file  The file to create or overwrite.
+     * @param tasks The tasks to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(Path file, Iterable<Task> tasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), BUFFER_SIZE));
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            int count = 0;
+            for (Task task : tasks) {
+                writeTask(out, task);
+                count++;
+            }
+            out.writeByte(END_OF_RECORDS);
+            out.flush();
+            // The checksum covers everything written so far; the count and checksum follow it.
+            long checksum = crc.getValue();
+            out.writeInt(count);
+            out.writeInt((int) checksum);
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads the tasks in the given binary snapshot. Every length and date is checked before it is used, so a
+     * damaged file is reported rather than making the read fail in some other way.
+     *
+     * @param file The snapshot file.
+     * @return The tasks read.
+     * @throws DamagedSnapshotException If the file is truncated, damaged or does not match its checksum; it holds
+     *                                  the tasks read before the damage.
+     * @throws IOException If the file cannot be read.
+     */
+    static ArrayList<Task> read(Path file) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        long size = Files.size(file);
+        // The checksum sits outside the buffer so that it only covers bytes actually consumed.
+        CountingInputStream counter = new CountingInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), crc));
+        try (DataInputStream in = new DataInputStream(counter)) {
+            in.skipNBytes(MAGIC.length);
+            int version = in.readUnsignedByte();
+            if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+                throw new DamagedSnapshotException(file + " has unsupported version " + version, tasks);
+            }
+            try {
+                int type;
+                while ((type = in.readUnsignedByte()) != END_OF_RECORDS) {
+                    tasks.add(readTask(in, type, version != VERSION_WITHOUT_IDS, size - counter.count));
+                }
+            } catch (EOFException e) {
+                throw new DamagedSnapshotException(file + " is truncated in task " + (tasks.size() + 1), tasks);
+            } catch (RuntimeException e) {
+                // E.g. an unknown type, an impossible length or a date out of range.
+                throw new DamagedSnapshotException(file + " is damaged in task " + (tasks.size() + 1) + ": "
+                        + e.getMessage(), tasks);
+            }
+            long checksum = crc.getValue();
+            int count = in.readInt();
+            int expected = in.readInt();
+            if (count != tasks.size() || expected != (int) checksum) {
+                throw new DamagedSnapshotException(file + " does not match its checksum", tasks);
+            }
+        } catch (EOFException e) {
+            throw new DamagedSnapshotException(file + " is truncated", tasks);
+        }
+        return tasks;
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeByte(task.getTaskType().charAt(0));
+        out.writeByte(task.isDone() ? 1 : 0);
+        writeVarInt(out, Math.max(task.getId(), 0));
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, description.length);
+        out.write(description);
+        if (task instanceof Deadline deadline) {
+            out.writeLong(DateTimeFormats.toEpochMinute(deadline.getBy()));
+        } else if (task instanceof Event event) {
+            out.writeLong(DateTimeFormats.toEpochMinute(event.getFrom()));
+            out.writeLong(DateTimeFormats.toEpochMinute(event.getTo()));
+        }
+    }
+
+    /**
+     * Reads the record of a task after its type byte.
+     *
+     * @param hasId     Whether the record holds the task's id.
+     * @param bytesLeft The number of bytes in the file after the type byte.
+     * @throws IllegalArgumentException If the record cannot be the record of a task.
+     */
+    private static Task readTask(DataInputStream in, int type, boolean hasId, long bytesLeft) throws IOException {
+        boolean isDone = in.readUnsignedByte() == 1;
+        int id = hasId ? readVarInt(in) : 0;
+        int length = readVarInt(in);
+        if (length < 0 || length > MAX_DESCRIPTION_LENGTH || length > bytesLeft) {
+            throw new IllegalArgumentException("description length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        String description = DescriptionPool.get().intern(new String(bytes, StandardCharsets.UTF_8));
+
+        Task task = switch (type) {
+        case 'T' -> new ToDo(description);
+        case 'D' -> new Deadline(description, DateTimeFormats.fromEpochMinute(in.readLong()));
+        case 'E' -> new Event(description, DateTimeFormats.fromEpochMinute(in.readLong()),
+                DateTimeFormats.fromEpochMinute(in.readLong()));
+        default -> throw new IllegalArgumentException("unknown task type " + type);
+        };
+        if (id > 0) {
+            task.setId(id);
+        }
+        if (isDone) {
+            task.markDone();
+        }
+        return task;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * Counts the bytes read through it, so that lengths read from the file can be checked against the rest.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package atri;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * A headless front end that reads commands from standard input or a script file and prints each response.
+ * It loads no JavaFX classes, so it starts quickly and can be driven by scripts such as text-ui-test.
+ * All output goes through one buffer, which is flushed after every response only when someone is typing
+ * at a console; piped input is answered in large writes.
+ */
+public class Cli {
+    private static final String USAGE = "Usage: java -cp <classpath> atri.Cli [--quiet] [script-file]";
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Runs the commands in the file named by the last argument, or on standard input if there is none.
+     * {@code --quiet} leaves out the storage notices such as "Tasks saved to ...".
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) {
+        boolean isQuiet = false;
+        String scriptFile = null;
+        for (String arg : args) {
+            if (arg.equals("--quiet")) {
+                isQuiet = true;
+            } else if (scriptFile == null && !arg.startsWith("--")) {
+                scriptFile = arg;
+            } else {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+
+        // Storage notices also go to System.out, so they share the buffer to stay in order with the responses.
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out),
+                OUTPUT_BUFFER_SIZE), false, StandardCharsets.UTF_8);
+        System.setOut(out);
+        Storage storage = new Storage();
+        storage.setQuiet(isQuiet);
+        boolean isInteractive = scriptFile == null && System.console() != null;
+        try (BufferedReader in = scriptFile == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(scriptFile), StandardCharsets.UTF_8)) {
+            run(in, out, storage, isInteractive);
+        } catch (IOException e) {
+            out.flush();
+            System.err.println("Error reading commands: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints the welcome message, then answers each command until the input ends or the user says bye,
+     * and finally writes any pending changes to disk.
+     *
+     * @param in            The commands, one per line. Blank lines are ignored.
+     * @param out           Where the responses are printed.
+     * @param storage       The storage the tasks are loaded from and saved to.
+     * @param isInteractive Whether to flush the output after every response.
+     * @throws IOException If the commands cannot be read.
+     */
+    static void run(BufferedReader in, PrintStream out, Storage storage, boolean isInteractive) throws IOException {
+        Atri atri = new Atri(storage);
+        try {
+            out.print(atri.getWelcome());
+            if (isInteractive) {
+                out.flush();
+            }
+            for (String line = in.readLine(); line != null && !atri.isExit(); line = in.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                out.println(atri.getResponse(line.strip()));
+                if (isInteractive) {
+                    out.flush();
+                }
+            }
+        } finally {
+            atri.close();
+            out.flush();
+        }
+    }
+}
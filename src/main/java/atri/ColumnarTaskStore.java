@@ -0,0 +1,281 @@
+package atri;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Stores tasks column by column in primitive arrays instead of as objects, for very large lists.
+ * Each task takes a type byte, a done bit, its id, two epoch-minute times (the due date of a deadline, or the
+ * start and end of an event) and its UTF-8 description in one shared byte arena, about 25 bytes plus the
+ * description against well over 100 for a task object with its string and dates. Scanning the descriptions
+ * reads the arena from front to back, comparing ASCII descriptions byte by byte without decoding them.
+ *
+ * <p>Task objects are only made when a task is asked for, as copies of its columns. Changing one does not
+ * change the store. A deleted task keeps its columns until it is compacted away, so restoring it only resets
+ * its type.
+ */
+class ColumnarTaskStore implements TaskStore {
+    private static final int MIN_CAPACITY = 16;
+    /** The largest array the JVM can reliably allocate. */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    /** Type of a deleted task. */
+    private static final byte DELETED = 0;
+    /** Each ASCII character in lower case. */
+    private static final char[] LOWER_CASE = new char[128];
+
+    static {
+        for (char c = 0; c < LOWER_CASE.length; c++) {
+            LOWER_CASE[c] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    /** 'T', 'D' or 'E' as in the binary snapshot, or {@link #DELETED}. */
+    private byte[] types = new byte[MIN_CAPACITY];
+    private int[] ids = new int[MIN_CAPACITY];
+    /** Due date of a deadline or start of an event, in epoch minutes. */
+    private long[] starts = new long[MIN_CAPACITY];
+    /** End of an event, in epoch minutes. */
+    private long[] ends = new long[MIN_CAPACITY];
+    /** The description of slot s is {@code arena[descriptionOffsets[s]..descriptionOffsets[s + 1])}. */
+    private int[] descriptionOffsets = new int[MIN_CAPACITY + 1];
+    private byte[] arena = new byte[MIN_CAPACITY * 32];
+    private final BitSet doneSlots = new BitSet();
+    /** Slots whose description has characters outside ASCII, which are decoded to be searched. */
+    private final BitSet nonAsciiSlots = new BitSet();
+    private int size;
+
+    /**
+     * Returns a store holding the given tasks, emptying the list as it goes so that the task objects can be
+     * collected while the rest are copied.
+     */
+    static ColumnarTaskStore from(ArrayList<Task> tasks) {
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        store.ensureCapacity(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            store.add(tasks.set(i, null));
+        }
+        tasks.clear();
+        return store;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isDeleted(int slot) {
+        return types[slot] == DELETED;
+    }
+
+    @Override
+    public Task get(int slot) {
+        int offset = descriptionOffsets[slot];
+        String description = new String(arena, offset, descriptionOffsets[slot + 1] - offset,
+                StandardCharsets.UTF_8);
+        Task task = switch (types[slot]) {
+        case 'T' -> new ToDo(description);
+        case 'D' -> new Deadline(description, DateTimeFormats.fromEpochMinute(starts[slot]));
+        case 'E' -> new Event(description, DateTimeFormats.fromEpochMinute(starts[slot]),
+                DateTimeFormats.fromEpochMinute(ends[slot]));
+        default -> throw new IllegalStateException("No task in slot " + slot);
+        };
+        task.setId(ids[slot]);
+        if (doneSlots.get(slot)) {
+            task.markDone();
+        }
+        return task;
+    }
+
+    @Override
+    public int getId(int slot) {
+        return ids[slot];
+    }
+
+    @Override
+    public void setId(int slot, int id) {
+        ids[slot] = id;
+    }
+
+    @Override
+    public void add(Task task) {
+        ensureCapacity(size + 1);
+        if (task instanceof Deadline deadline) {
+            types[size] = 'D';
+            starts[size] = DateTimeFormats.toEpochMinute(deadline.getBy());
+        } else if (task instanceof Event event) {
+            types[size] = 'E';
+            starts[size] = DateTimeFormats.toEpochMinute(event.getFrom());
+            ends[size] = DateTimeFormats.toEpochMinute(event.getTo());
+        } else {
+            types[size] = 'T';
+        }
+        ids[size] = task.getId();
+        doneSlots.set(size, task.isDone());
+
+        String description = task.getDescription();
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        // Every character outside ASCII takes more than one byte.
+        nonAsciiSlots.set(size, bytes.length != description.length());
+        int offset = descriptionOffsets[size];
+        if (bytes.length > arena.length - offset) {
+            arena = Arrays.copyOf(arena, grow(arena.length, (long) offset + bytes.length));
+        }
+        System.arraycopy(bytes, 0, arena, offset, bytes.length);
+        descriptionOffsets[size + 1] = offset + bytes.length;
+        size++;
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int newCapacity = grow(types.length, capacity);
+        types = Arrays.copyOf(types, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        starts = Arrays.copyOf(starts, newCapacity);
+        ends = Arrays.copyOf(ends, newCapacity);
+        descriptionOffsets = Arrays.copyOf(descriptionOffsets, newCapacity + 1);
+    }
+
+    @Override
+    public Task delete(int slot) {
+        Task task = get(slot);
+        types[slot] = DELETED;
+        return task;
+    }
+
+    @Override
+    public void restore(int slot, Task task) {
+        // The columns still hold the task; only its type marks it deleted.
+        types[slot] = (byte) task.getTaskType().charAt(0);
+        doneSlots.set(slot, task.isDone());
+    }
+
+    @Override
+    public void insert(int[] at, List<Task> tasks) {
+        ColumnarTaskStore merged = new ColumnarTaskStore();
+        merged.ensureCapacity(size + tasks.size());
+        int next = 0;
+        for (int slot = 0; slot <= size; slot++) {
+            while (next < tasks.size() && at[next] == slot) {
+                merged.add(tasks.get(next++));
+            }
+            if (slot < size) {
+                merged.copy(this, slot);
+            }
+        }
+        types = merged.types;
+        ids = merged.ids;
+        starts = merged.starts;
+        ends = merged.ends;
+        descriptionOffsets = merged.descriptionOffsets;
+        arena = merged.arena;
+        doneSlots.clear();
+        doneSlots.or(merged.doneSlots);
+        nonAsciiSlots.clear();
+        nonAsciiSlots.or(merged.nonAsciiSlots);
+        size = merged.size;
+    }
+
+    @Override
+    public boolean isDone(int slot) {
+        return doneSlots.get(slot);
+    }
+
+    @Override
+    public void setDone(int slot, boolean isDone) {
+        doneSlots.set(slot, isDone);
+    }
+
+    @Override
+    public boolean descriptionContains(int slot, String query) {
+        int start = descriptionOffsets[slot];
+        int end = descriptionOffsets[slot + 1];
+        if (nonAsciiSlots.get(slot)) {
+            return new String(arena, start, end - start, StandardCharsets.UTF_8).toLowerCase().contains(query);
+        }
+        // A lower-cased ASCII description stays ASCII, so a query with other characters never matches.
+        int queryLength = query.length();
+        if (queryLength == 0) {
+            return true;
+        }
+        char first = query.charAt(0);
+        search:
+        for (int i = start, last = end - queryLength; i <= last; i++) {
+            if (LOWER_CASE[arena[i]] != first) {
+                continue;
+            }
+            for (int j = 1; j < queryLength; j++) {
+                if (LOWER_CASE[arena[i + j]] != query.charAt(j)) {
+                    continue search;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void compact() {
+        int live = 0;
+        int arenaEnd = 0;
+        int start = descriptionOffsets[0];
+        for (int slot = 0; slot < size; slot++) {
+            int end = descriptionOffsets[slot + 1];
+            if (types[slot] != DELETED) {
+                types[live] = types[slot];
+                ids[live] = ids[slot];
+                starts[live] = starts[slot];
+                ends[live] = ends[slot];
+                doneSlots.set(live, doneSlots.get(slot));
+                nonAsciiSlots.set(live, nonAsciiSlots.get(slot));
+                System.arraycopy(arena, start, arena, arenaEnd, end - start);
+                arenaEnd += end - start;
+                descriptionOffsets[live + 1] = arenaEnd;
+                live++;
+            }
+            start = end;
+        }
+        doneSlots.clear(live, size);
+        nonAsciiSlots.clear(live, size);
+        size = live;
+    }
+
+    /**
+     * Appends a slot of another store, copying its description without decoding it.
+     */
+    private void copy(ColumnarTaskStore from, int slot) {
+        types[size] = from.types[slot];
+        ids[size] = from.ids[slot];
+        starts[size] = from.starts[slot];
+        ends[size] = from.ends[slot];
+        doneSlots.set(size, from.doneSlots.get(slot));
+        nonAsciiSlots.set(size, from.nonAsciiSlots.get(slot));
+        int start = from.descriptionOffsets[slot];
+        int length = from.descriptionOffsets[slot + 1] - start;
+        int offset = descriptionOffsets[size];
+        if (length > arena.length - offset) {
+            arena = Arrays.copyOf(arena, grow(arena.length, (long) offset + length));
+        }
+        System.arraycopy(from.arena, start, arena, offset, length);
+        descriptionOffsets[size + 1] = offset + length;
+        size++;
+    }
+
+    /**
+     * Returns a new length for an array, at least doubling it so that adding to it costs amortized O(1).
+     *
+     * @throws OutOfMemoryError If the array would have to be longer than any array can be.
+     */
+    private static int grow(int length, long minLength) {
+        if (minLength > MAX_ARRAY_LENGTH) {
+            throw new OutOfMemoryError("Columnar task store cannot hold " + minLength + " elements");
+        }
+        return (int) Math.max(minLength, Math.min(MAX_ARRAY_LENGTH, Math.max(MIN_CAPACITY, 2L * length)));
+    }
+}
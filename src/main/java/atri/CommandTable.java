@@ -0,0 +1,58 @@
+package atri;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The commands Atri understands, by name. Each command registers its handler together with the flags its
+ * arguments take, such as {@code /by} for deadline, so a command line is split up in one scan without
+ * regular expressions, and a new command can be added without touching the code that dispatches them.
+ * Command names are matched ignoring case.
+ */
+class CommandTable {
+    private final Map<String, Command> commands = new HashMap<>();
+
+    /**
+     * Adds a command, replacing any command with the same name.
+     *
+     * @param name    The name typed to run the command, in lower case.
+     * @param handler What the command does.
+     * @param flags   The flags its arguments may contain, e.g. {@code "/from"} and {@code "/to"}.
+     */
+    void register(String name, Handler handler, String... flags) {
+        commands.put(name, new Command(name, flags.clone(), handler));
+    }
+
+    /**
+     * Parses a command line: the command name up to the first space, then its arguments.
+     *
+     * @param input The command line.
+     * @return The parsed command, or null if no command has that name.
+     */
+    ParsedCommand parse(String input) {
+        int nameEnd = input.indexOf(' ');
+        String name = nameEnd < 0 ? input : input.substring(0, nameEnd);
+        Command command = commands.get(name);
+        if (command == null) {
+            command = commands.get(name.toLowerCase(Locale.ROOT));
+            if (command == null) {
+                return null;
+            }
+        }
+        int textStart = nameEnd < 0 ? input.length() : nameEnd + 1;
+        int[] flagStarts = command.flags.length == 0 ? null : Parser.findFlags(input, textStart, command.flags);
+        return new ParsedCommand(command.name, command.handler, input, textStart, command.flags, flagStarts);
+    }
+
+    /**
+     * Carries out a command and returns the response to show.
+     */
+    @FunctionalInterface
+    interface Handler {
+        String handle(ParsedCommand command);
+    }
+
+    private record Command(String name, String[] flags, Handler handler) {
+    }
+}
@@ -0,0 +1,202 @@
+package atri;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A TaskList that several front ends, each on its own thread, can use at once.
+ *
+ * <p>Changes take the write lock of a {@link StampedLock}, one at a time, and notify the listener before
+ * releasing it, so the journal records them in the order they took effect. Reads such as list, find and
+ * the date queries walk the index maps, the Fenwick tree and the slot arrays, none of which are safe to
+ * walk while a change is half made, so they take the read lock; any number of them run at once. Only the
+ * size and version, single fields, are read optimistically without a lock and read again under it if a
+ * change overlapped them.
+ *
+ * <p>Both indexes are built up front, so reads never have to build one. The thread holding the write lock
+ * may call back into the list, e.g. from inside {@link #update}.
+ */
+class ConcurrentTaskList extends TaskList {
+    private final StampedLock lock = new StampedLock();
+    /** The thread holding the write lock, which reads and changes directly instead of locking again. */
+    private volatile Thread writer;
+    /** Whether this thread holds the read lock; taking it again could queue behind a waiting writer forever. */
+    private final ThreadLocal<Boolean> holdsReadLock = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Creates a shared task list holding the given tasks, keeping their ids as {@link TaskList} does.
+     */
+    public ConcurrentTaskList(ArrayList<Task> tasks) {
+        this(new ObjectTaskStore(tasks));
+    }
+
+    /**
+     * Creates a shared task list holding the tasks in the given store, keeping their ids as {@link TaskList} does.
+     */
+    ConcurrentTaskList(TaskStore tasks) {
+        super(tasks);
+        buildIndexes();
+    }
+
+    @Override
+    <T> T read(Supplier<T> action) {
+        if (writer == Thread.currentThread() || holdsReadLock.get()) {
+            return action.get();
+        }
+        long stamp = lock.readLock();
+        holdsReadLock.set(true);
+        try {
+            return action.get();
+        } finally {
+            holdsReadLock.set(false);
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    <T> T update(Supplier<T> action) {
+        if (writer == Thread.currentThread()) {
+            return action.get();
+        }
+        long stamp = lock.writeLock();
+        writer = Thread.currentThread();
+        try {
+            return action.get();
+        } finally {
+            writer = null;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void setListener(ChangeListener listener) {
+        write(() -> super.setListener(listener));
+    }
+
+    @Override
+    public void addTask(Task task) {
+        write(() -> super.addTask(task));
+    }
+
+    @Override
+    public void addTasks(List<Task> tasks) {
+        write(() -> super.addTasks(tasks));
+    }
+
+    @Override
+    public void deleteTask(int index) {
+        write(() -> super.deleteTask(index));
+    }
+
+    @Override
+    public void deleteTasks(BitSet indices) {
+        write(() -> super.deleteTasks(indices));
+    }
+
+    @Override
+    public void markTasks(BitSet indices, boolean isDone) {
+        write(() -> super.markTasks(indices, isDone));
+    }
+
+    @Override
+    public void markTaskDone(int index) {
+        write(() -> super.markTaskDone(index));
+    }
+
+    @Override
+    public void markTaskUndone(int index) {
+        write(() -> super.markTaskUndone(index));
+    }
+
+    @Override
+    History.Delta undo() {
+        return update(super::undo);
+    }
+
+    @Override
+    History.Delta redo() {
+        return update(super::redo);
+    }
+
+    @Override
+    void clearHistory() {
+        write(super::clearHistory);
+    }
+
+    @Override
+    public BitSet selectTasks(Predicate<Task> condition) {
+        return read(() -> super.selectTasks(condition));
+    }
+
+    @Override
+    public Task getTask(int index) {
+        return read(() -> super.getTask(index));
+    }
+
+    @Override
+    public int getIndexOfId(int id) {
+        return read(() -> super.getIndexOfId(id));
+    }
+
+    @Override
+    public long getVersion() {
+        return readField(super::getVersion);
+    }
+
+    @Override
+    public int getSize() {
+        return (int) readField(super::getSize);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return read(() -> super.getTasks());
+    }
+
+    @Override
+    public List<Task> getTasks(int from, int to) {
+        return read(() -> super.getTasks(from, to));
+    }
+
+    @Override
+    public ArrayList<Task> findTasks(String keyword) {
+        return read(() -> super.findTasks(keyword));
+    }
+
+    @Override
+    public List<Task> findTasksDue(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.findTasksDue(from, to));
+    }
+
+    @Override
+    public List<Task> findTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.findTasksBetween(from, to));
+    }
+
+    @Override
+    public List<Task> findOverdueTasks(LocalDateTime now) {
+        return read(() -> super.findOverdueTasks(now));
+    }
+
+    /**
+     * Reads a single field without locking, reading it again under the read lock if a change overlapped.
+     */
+    private long readField(LongSupplier field) {
+        long stamp = lock.tryOptimisticRead();
+        long value = field.getAsLong();
+        return lock.validate(stamp) ? value : read(field::getAsLong);
+    }
+
+    private void write(Runnable action) {
+        update(() -> {
+            action.run();
+            return null;
+        });
+    }
+}
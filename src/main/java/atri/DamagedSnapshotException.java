@@ -0,0 +1,31 @@
+package atri;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Thrown when a snapshot file cannot be verified: it does not match its checksum, has none, or is cut short.
+ * It carries the tasks that could still be read, so that they can be offered to the user once the damage
+ * has been reported, rather than starting from an empty list.
+ */
+class DamagedSnapshotException extends IOException {
+    private final transient ArrayList<Task> tasks;
+
+    /**
+     * Constructs an exception for a snapshot that could not be verified.
+     *
+     * @param message What is wrong with the file.
+     * @param tasks   The tasks that could be read from it.
+     */
+    DamagedSnapshotException(String message, ArrayList<Task> tasks) {
+        super(message);
+        this.tasks = tasks;
+    }
+
+    /**
+     * Returns the tasks that could be read, which may be wrong or incomplete.
+     */
+    ArrayList<Task> getTasks() {
+        return tasks;
+    }
+}
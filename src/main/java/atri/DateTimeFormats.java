@@ -0,0 +1,186 @@
+package atri;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Shared date/time formatting for tasks.
+ * Both patterns are compiled once. The fixed {@code yyyy-MM-dd HHmm} layout used for input and the data
+ * file also has a hand-written fast path that reads and writes the digits directly; anything unusual
+ * (e.g. an out-of-range day the formatter would adjust) falls back to the formatter, so the results
+ * are always the same as the formatter's.
+ */
+final class DateTimeFormats {
+    /** Format of dates typed by the user and stored in the data file, e.g. 2024-12-25 1800. */
+    static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    /** Format of dates shown to the user, e.g. Dec 25 2024 1800. */
+    static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy HHmm");
+    static final int INPUT_LENGTH = 15;
+
+    private static final String[] MONTH_NAMES = new String[12];
+
+    static {
+        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM");
+        for (Month month : Month.values()) {
+            MONTH_NAMES[month.ordinal()] = monthFormatter.format(month);
+        }
+    }
+
+    private DateTimeFormats() {
+    }
+
+    /**
+     * Parses a date in the {@code yyyy-MM-dd HHmm} format.
+     *
+     * @param text The text to parse.
+     * @return The parsed date and time.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid date in that format.
+     */
+    static LocalDateTime parseInput(CharSequence text) {
+        if (text.length() == INPUT_LENGTH && text.charAt(4) == '-' && text.charAt(7) == '-'
+                && text.charAt(10) == ' ') {
+            LocalDateTime dateTime = of(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                    digits(text, 11, 2), digits(text, 13, 2));
+            if (dateTime != null) {
+                return dateTime;
+            }
+        }
+        return LocalDateTime.parse(text, INPUT_FORMATTER);
+    }
+
+    /**
+     * Parses a {@code yyyy-MM-dd HHmm} date from the bytes at the given offset without decoding them.
+     *
+     * @param buffer The buffer holding at least {@link #INPUT_LENGTH} bytes from {@code start}.
+     * @param start  The offset of the first digit of the year.
+     * @return The parsed date and time, or null if the bytes are not a plain valid date in that format.
+     */
+    static LocalDateTime parseInput(ByteBuffer buffer, int start) {
+        if (buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-' || buffer.get(start + 10) != ' ') {
+            return null;
+        }
+        return of(digits(buffer, start, 4), digits(buffer, start + 5, 2), digits(buffer, start + 8, 2),
+                digits(buffer, start + 11, 2), digits(buffer, start + 13, 2));
+    }
+
+    /**
+     * Returns the date in the {@code yyyy-MM-dd HHmm} format.
+     */
+    static String formatInput(LocalDateTime dateTime) {
+        return appendInput(new StringBuilder(INPUT_LENGTH), dateTime).toString();
+    }
+
+    /**
+     * Appends the date in the {@code yyyy-MM-dd HHmm} format.
+     *
+     * @return The given builder.
+     */
+    static StringBuilder appendInput(StringBuilder builder, LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 1 || year > 9999) {
+            INPUT_FORMATTER.formatTo(dateTime, builder);
+            return builder;
+        }
+        appendDigits(builder, year, 4).append('-');
+        appendDigits(builder, dateTime.getMonthValue(), 2).append('-');
+        appendDigits(builder, dateTime.getDayOfMonth(), 2).append(' ');
+        appendDigits(builder, dateTime.getHour(), 2);
+        return appendDigits(builder, dateTime.getMinute(), 2);
+    }
+
+    /**
+     * Returns the date in the {@code MMM dd yyyy HHmm} display format.
+     */
+    static String formatDisplay(LocalDateTime dateTime) {
+        return appendDisplay(new StringBuilder(20), dateTime).toString();
+    }
+
+    /**
+     * Appends the date in the {@code MMM dd yyyy HHmm} display format.
+     *
+     * @return The given builder.
+     */
+    static StringBuilder appendDisplay(StringBuilder builder, LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 1 || year > 9999) {
+            DISPLAY_FORMATTER.formatTo(dateTime, builder);
+            return builder;
+        }
+        builder.append(MONTH_NAMES[dateTime.getMonthValue() - 1]).append(' ');
+        appendDigits(builder, dateTime.getDayOfMonth(), 2).append(' ');
+        appendDigits(builder, year, 4).append(' ');
+        appendDigits(builder, dateTime.getHour(), 2);
+        return appendDigits(builder, dateTime.getMinute(), 2);
+    }
+
+    /**
+     * Returns the number of minutes from 1970-01-01 0000 to the given time, which is a whole minute as all
+     * task times are.
+     */
+    static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /**
+     * Returns the time the given number of minutes after 1970-01-01 0000.
+     */
+    static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the date for the given fields, or null if any is missing (negative) or out of range.
+     * Years before 1 are left to the formatter, which reads {@code yyyy} as year-of-era.
+     */
+    private static LocalDateTime of(int year, int month, int day, int hour, int minute) {
+        if (year < 1 || month < 0 || day < 0 || hour < 0 || minute < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value of {@code count} ASCII digits, or -1 if any character is not a digit.
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of {@code count} ASCII digit bytes, or -1 if any byte is not a digit.
+     */
+    private static int digits(ByteBuffer buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static StringBuilder appendDigits(StringBuilder builder, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + value / divisor % 10));
+        }
+        return builder;
+    }
+}
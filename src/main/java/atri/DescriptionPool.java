@@ -0,0 +1,110 @@
+package atri;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets tasks with the same description, such as a recurring "standup", share one string instead of each
+ * holding its own copy.
+ *
+ * <p>The pool is a fixed table of weak references indexed by hash, and a description that recurs replaces
+ * whatever shared its slot before. Descriptions that recur often therefore stay in it, ones used once never
+ * enter it, and the pool never grows or keeps a string alive. A complete weak pool, with a map entry
+ * and a weak reference for every distinct description, made loading a million distinct descriptions ten
+ * times slower and took more heap than it saved. Sharing is best effort: two equal descriptions far apart in a
+ * large file may stay separate strings.
+ *
+ * <p>Pure ASCII descriptions need no special storage: the JVM already keeps strings whose characters all
+ * fit in a byte as one byte per character.
+ */
+class DescriptionPool {
+    private static final DescriptionPool INSTANCE = new DescriptionPool();
+    private static final int SLOT_COUNT = 8192;
+
+    private final AtomicReferenceArray<WeakReference<String>> slots = new AtomicReferenceArray<>(SLOT_COUNT);
+    /**
+     * Hash of the last description seen in each slot. A description is only pooled the second time it is
+     * seen, so the many that are used once cost a hash and no allocation. Threads may race on it; the worst
+     * a race does is miss a chance to share.
+     */
+    private final int[] seenHashes = new int[SLOT_COUNT];
+    private final LongAdder duplicateCount = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Returns the description pool of this process.
+     */
+    static DescriptionPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the pooled string equal to the given description if there is one. Otherwise this one is pooled
+     * if an equal description was the last one seen in its slot.
+     * May be called from any thread.
+     *
+     * @param description The description of a new task.
+     * @return A string equal to it.
+     */
+    String intern(String description) {
+        int hash = description.hashCode();
+        int slot = (hash ^ (hash >>> 13)) & (SLOT_COUNT - 1);
+        WeakReference<String> pooled = slots.get(slot);
+        String shared = pooled == null ? null : pooled.get();
+        if (shared != null && shared.hashCode() == hash && shared.equals(description)) {
+            if (shared != description) {
+                duplicateCount.increment();
+                bytesSaved.add(sizeOf(description));
+            }
+            return shared;
+        }
+        if (seenHashes[slot] == hash) {
+            slots.set(slot, new WeakReference<>(description));
+        } else {
+            seenHashes[slot] = hash;
+        }
+        return description;
+    }
+
+    /**
+     * Returns how many descriptions were replaced by an equal pooled one.
+     */
+    long getDuplicateCount() {
+        return duplicateCount.sum();
+    }
+
+    /**
+     * Returns roughly how much heap the replaced descriptions would have taken.
+     */
+    long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Clears the counts of duplicates, keeping the pooled descriptions.
+     */
+    void resetCounts() {
+        duplicateCount.reset();
+        bytesSaved.reset();
+    }
+
+    /**
+     * Returns roughly the heap a string takes with compressed pointers: a 24-byte object and its byte array,
+     * which holds one byte per character if they all fit in one and two otherwise.
+     */
+    private static long sizeOf(String text) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return 24 + align(16 + (long) text.length() * bytesPerChar);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -2,6 +2,7 @@ package atri;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -10,15 +11,21 @@ import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's face
  * and a label containing text from the speaker.
  */
 public class DialogBox extends HBox {
+    private static final double LIST_CELL_HEIGHT = 24.0;
+    private static final int LIST_VISIBLE_ROWS = 15;
+
     @FXML
     private Label dialog;
     @FXML
@@ -58,4 +65,28 @@ public class DialogBox extends HBox {
         db.flip();
         return db;
     }
+
+    /**
+     * Returns a reply showing a caption above a scrollable list of rows.
+     * The list is virtualized: only the rows currently on screen are read and laid out.
+     *
+     * @param caption The text shown above the rows.
+     * @param rows The rows, which may be rendered lazily as they are read.
+     * @param img The speaker's picture.
+     * @return The dialog box.
+     */
+    public static DialogBox getAtriListDialog(String caption, List<String> rows, Image img) {
+        var db = new DialogBox(caption, img);
+        ListView<String> listView = new ListView<>(FXCollections.observableList(rows));
+        listView.setFixedCellSize(LIST_CELL_HEIGHT);
+        listView.setPrefHeight(Math.min(rows.size(), LIST_VISIBLE_ROWS) * LIST_CELL_HEIGHT + 2);
+        listView.setFocusTraversable(false);
+
+        db.getChildren().remove(db.dialog);
+        VBox content = new VBox(db.dialog, listView);
+        HBox.setHgrow(content, Priority.ALWAYS);
+        db.getChildren().add(0, content);
+        db.flip();
+        return db;
+    }
 }
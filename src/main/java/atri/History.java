@@ -0,0 +1,164 @@
+package atri;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The changes that undo the latest changes to a {@link TaskList}, and those that redo what was undone.
+ * Each is a {@link Delta}, such as "insert this task at position 3" or "mark the tasks at positions 5-9 as
+ * not done", rather than a copy of the list. Undoing a change applies its delta through the list's usual
+ * mutators, which record the delta that redoes it. Every change also reaches the list's listener as a delta,
+ * and {@link Journal} writes and replays those same deltas, so undo and the journal share one format.
+ *
+ * <p>At most a set number of changes can be undone; older ones are dropped, so the history never holds more
+ * than that many deltas however long Atri runs. Making a new change forgets what was undone.
+ */
+class History {
+    /** Changes that can be undone unless {@code -Datri.undoLimit} says otherwise. */
+    static final int DEFAULT_LIMIT = 100;
+
+    private final int limit;
+    /** Deltas that undo the latest changes, latest first. */
+    private final ArrayDeque<Delta> undoDeltas = new ArrayDeque<>();
+    /** Deltas that redo the latest undone changes, latest first. */
+    private final ArrayDeque<Delta> redoDeltas = new ArrayDeque<>();
+    private boolean isUndoing;
+    private boolean isRedoing;
+
+    /**
+     * Constructs a history of at most the given number of changes, or none at all for zero.
+     */
+    History(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns a history limited by {@code -Datri.undoLimit}, or to {@link #DEFAULT_LIMIT} changes.
+     */
+    static History fromSystemProperty() {
+        return new History(Math.max(0, Integer.getInteger("atri.undoLimit", DEFAULT_LIMIT)));
+    }
+
+    /**
+     * Records the delta that reverses a change just made: as a change to undo, or to redo if the change was an
+     * undo. A new change forgets the changes undone before it.
+     */
+    void record(Delta inverse) {
+        if (isUndoing) {
+            redoDeltas.push(inverse);
+            return;
+        }
+        if (!isRedoing) {
+            redoDeltas.clear();
+        }
+        if (limit == 0) {
+            return;
+        }
+        if (undoDeltas.size() == limit) {
+            undoDeltas.removeLast();
+        }
+        undoDeltas.push(inverse);
+    }
+
+    /**
+     * Removes and returns the delta that undoes the latest change, or null if there is none. Until
+     * {@link #finish} the deltas recorded are ones that redo it.
+     */
+    Delta startUndo() {
+        Delta delta = undoDeltas.poll();
+        isUndoing = delta != null;
+        return delta;
+    }
+
+    /**
+     * Removes and returns the delta that redoes the latest undone change, or null if there is none. Until
+     * {@link #finish} the deltas recorded are ones that undo it again.
+     */
+    Delta startRedo() {
+        Delta delta = redoDeltas.poll();
+        isRedoing = delta != null;
+        return delta;
+    }
+
+    /**
+     * Ends an undo or redo, so that the deltas recorded are for new changes again.
+     */
+    void finish() {
+        isUndoing = false;
+        isRedoing = false;
+    }
+
+    /**
+     * Forgets every change, for when the list was changed in a way that cannot be undone.
+     */
+    void clear() {
+        undoDeltas.clear();
+        redoDeltas.clear();
+    }
+
+    /**
+     * What a delta does to the tasks at its positions.
+     */
+    enum Kind {
+        INSERT, DELETE, MARK, UNMARK
+    }
+
+    /**
+     * One change to a task list: tasks inserted at positions, or the tasks at positions deleted, marked done or
+     * marked not done. Positions are zero-based, numbered as in the list after an insertion and before a
+     * deletion, and kept as ranges, so a change to a run of tasks takes a few ints however long the list is.
+     * Only an insertion holds tasks.
+     *
+     * @param kind   What the change does.
+     * @param ranges The first and last position of each run of positions, in increasing order.
+     * @param tasks  The tasks to insert, in order, or an empty list.
+     */
+    record Delta(Kind kind, int[] ranges, List<Task> tasks) {
+        /**
+         * Returns a delta for the tasks at the given positions.
+         */
+        static Delta of(Kind kind, BitSet indices, List<Task> tasks) {
+            int runCount = 0;
+            for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(indices.nextClearBit(i))) {
+                runCount++;
+            }
+            int[] ranges = new int[runCount * 2];
+            int run = 0;
+            for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(ranges[run - 1] + 1)) {
+                ranges[run++] = i;
+                ranges[run++] = indices.nextClearBit(i) - 1;
+            }
+            return new Delta(kind, ranges, tasks);
+        }
+
+        /**
+         * Returns a delta for the task at one position.
+         */
+        static Delta of(Kind kind, int index, List<Task> tasks) {
+            return new Delta(kind, new int[] {index, index}, tasks);
+        }
+
+        /**
+         * Returns the positions the delta applies to.
+         */
+        BitSet indices() {
+            BitSet indices = new BitSet();
+            for (int i = 0; i < ranges.length; i += 2) {
+                indices.set(ranges[i], ranges[i + 1] + 1);
+            }
+            return indices;
+        }
+
+        /**
+         * Returns the number of tasks the delta applies to.
+         */
+        int count() {
+            int count = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                count += ranges[i + 1] - ranges[i] + 1;
+            }
+            return count;
+        }
+    }
+}
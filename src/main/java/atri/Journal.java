@@ -0,0 +1,341 @@
+package atri;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of task list mutations.
+ * Each mutation is buffered as one short line and later appended to the file, so a change costs
+ * a small append instead of a rewrite of the whole data file. The log is periodically folded into
+ * the snapshot by {@link Storage}.
+ *
+ * <p>Each record is a {@link History.Delta}, the same change undo applies, encoded by {@link #records} and
+ * decoded by {@link #parse}. Record formats (indices are zero-based positions at the time of the mutation):
+ * <pre>
+ *   I | 3 | 12 | T | 0 | description  insert the task with id 12 at index 3, e.g. one added or put back by undo
+ *   M | 3                              mark task 3 as done
+ *   U | 3                              mark task 3 as not done
+ *   X | 3                              delete task 3
+ *   X | 3,7,10-250                     delete tasks 3, 7 and 10 to 250 in one step
+ * </pre>
+ * Mark, unmark and delete records all take such a list of indices and ranges, so a bulk command is one record;
+ * an insertion is one record per task, since each carries the task's file string. Older journals also hold
+ * {@code A | T | 0 | description} records, which add a task at the end, and records without ids, whose tasks
+ * get the next ids when loaded.
+ */
+class Journal {
+    private static final String ADD = "A";
+    private static final String INSERT = "I";
+    private static final String MARK = "M";
+    private static final String UNMARK = "U";
+    private static final String DELETE = "X";
+    private static final String SEPARATOR = " | ";
+
+    private final Path path;
+    private final Path rotatedPath;
+    private final StringBuilder pending = new StringBuilder();
+    private FileChannel channel;
+    private int recordCount;
+
+    /**
+     * Constructs a Journal backed by the given file.
+     *
+     * @param path The journal file.
+     */
+    public Journal(Path path) {
+        this.path = path;
+        this.rotatedPath = path.resolveSibling(path.getFileName() + ".old");
+    }
+
+    /**
+     * Returns the records that make the given change: one per task for an insertion, and one for any other.
+     */
+    static List<String> records(History.Delta delta) {
+        if (delta.kind() != History.Kind.INSERT) {
+            String type = switch (delta.kind()) {
+            case MARK -> MARK;
+            case UNMARK -> UNMARK;
+            default -> DELETE;
+            };
+            return List.of(type + SEPARATOR + formatRanges(delta.ranges()));
+        }
+        List<String> records = new ArrayList<>(delta.tasks().size());
+        int i = 0;
+        for (int run = 0; run < delta.ranges().length; run += 2) {
+            for (int index = delta.ranges()[run]; index <= delta.ranges()[run + 1]; index++) {
+                records.add(INSERT + SEPARATOR + index + SEPARATOR + delta.tasks().get(i++).toDataLine());
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Parses a record into the change it makes to a list of the given size.
+     *
+     * @return The change, or null if the record is malformed or does not fit the list.
+     */
+    static History.Delta parse(String record, int size, Storage.TaskParser parser) {
+        int separator = record.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return null;
+        }
+        String type = record.substring(0, separator);
+        String argument = record.substring(separator + SEPARATOR.length());
+        if (type.equals(ADD)) {
+            Task task = parser.parseTaskLine(argument);
+            return task == null ? null : History.Delta.of(History.Kind.INSERT, size, List.of(task));
+        }
+        if (type.equals(INSERT)) {
+            return parseInsert(argument, size, parser);
+        }
+        History.Kind kind = switch (type) {
+        case MARK -> History.Kind.MARK;
+        case UNMARK -> History.Kind.UNMARK;
+        case DELETE -> History.Kind.DELETE;
+        default -> null;
+        };
+        int[] ranges = kind == null ? null : parseRanges(argument, size);
+        return ranges == null ? null : new History.Delta(kind, ranges, List.of());
+    }
+
+    /**
+     * Parses the argument of an insert record: an index and the task to insert there.
+     */
+    private static History.Delta parseInsert(String argument, int size, Storage.TaskParser parser) {
+        int separator = argument.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return null;
+        }
+        int index;
+        try {
+            index = Integer.parseInt(argument.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Task task = parser.parseTaskLine(argument.substring(separator + SEPARATOR.length()));
+        if (task == null || index < 0 || index > size) {
+            return null;
+        }
+        return History.Delta.of(History.Kind.INSERT, index, List.of(task));
+    }
+
+    /**
+     * Returns the ranges of a delta as a comma-separated list in which each run of more than one index is a
+     * range, e.g. "3,7,10-250".
+     */
+    private static String formatRanges(int[] ranges) {
+        StringBuilder builder = new StringBuilder();
+        for (int run = 0; run < ranges.length; run += 2) {
+            if (run > 0) {
+                builder.append(',');
+            }
+            builder.append(ranges[run]);
+            if (ranges[run + 1] > ranges[run]) {
+                builder.append('-').append(ranges[run + 1]);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses ranges written by {@link #formatRanges}, or returns null if the text is malformed, the ranges are
+     * not in increasing order or an index is not below the given size.
+     */
+    private static int[] parseRanges(String text, int size) {
+        String[] items = text.split(",");
+        int[] ranges = new int[items.length * 2];
+        try {
+            for (int i = 0; i < items.length; i++) {
+                int dash = items[i].indexOf('-');
+                int start = Integer.parseInt(dash < 0 ? items[i] : items[i].substring(0, dash));
+                int end = dash < 0 ? start : Integer.parseInt(items[i].substring(dash + 1));
+                if (start < (i == 0 ? 0 : ranges[2 * i - 1] + 1) || end < start || end >= size) {
+                    return null;
+                }
+                ranges[2 * i] = start;
+                ranges[2 * i + 1] = end;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return ranges;
+    }
+
+    /**
+     * Appends a record to the in-memory buffer. The record reaches the file on the next {@link #flush()},
+     * so callers never wait for the disk.
+     *
+     * @param record The record to append.
+     */
+    public synchronized void append(String record) {
+        pending.append(record).append('\n');
+        recordCount++;
+    }
+
+    /**
+     * Writes any buffered records to the journal file.
+     *
+     * @return The number of bytes written.
+     * @throws IOException If the journal cannot be written.
+     */
+    public synchronized int flush() throws IOException {
+        if (pending.length() == 0) {
+            return 0;
+        }
+        if (channel == null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(pending));
+        int written = bytes.remaining();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        pending.setLength(0);
+        return written;
+    }
+
+    /**
+     * Writes any buffered records and forces them to the storage device.
+     *
+     * @return The number of bytes written.
+     * @throws IOException If the journal cannot be written.
+     */
+    public synchronized int sync() throws IOException {
+        int written = flush();
+        if (channel != null) {
+            channel.force(false);
+        }
+        return written;
+    }
+
+    /**
+     * Returns the number of records appended since the journal was last rotated.
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Moves the live journal aside so it can be folded into a snapshot while new records go to a fresh file.
+     * If an earlier rotated journal was never folded (e.g. the program stopped mid-compaction), the live
+     * records are appended to it instead so no mutation is lost.
+     *
+     * @return The rotated journal file, or null if there is nothing to fold.
+     * @throws IOException If the files cannot be moved.
+     */
+    public synchronized Path rotate() throws IOException {
+        flush();
+        closeChannel();
+        recordCount = 0;
+        if (Files.exists(path)) {
+            if (Files.exists(rotatedPath)) {
+                Files.write(rotatedPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                Files.delete(path);
+            } else {
+                Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        return Files.exists(rotatedPath) ? rotatedPath : null;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Path getRotatedPath() {
+        return rotatedPath;
+    }
+
+    /**
+     * Replays the rotated journal and then the live journal onto the given tasks.
+     *
+     * @param tasks  The tasks loaded from the snapshot, modified in place.
+     * @param parser The parser used to decode added tasks.
+     * @return The number of records applied.
+     * @throws IOException If a journal file cannot be read.
+     */
+    public int replay(List<Task> tasks, Storage.TaskParser parser) throws IOException {
+        return replay(rotatedPath, tasks, parser) + replay(path, tasks, parser);
+    }
+
+    /**
+     * Replays a single journal file onto the given tasks.
+     * Records that cannot be applied (for example a line torn by a crash) are reported and skipped.
+     *
+     * @param file   The journal file to replay.
+     * @param tasks  The tasks to modify in place.
+     * @param parser The parser used to decode added tasks.
+     * @return The number of records applied.
+     * @throws IOException If the file cannot be read.
+     */
+    static int replay(Path file, List<Task> tasks, Storage.TaskParser parser) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int applied = 0;
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                History.Delta delta = parse(line, tasks.size(), parser);
+                if (delta != null) {
+                    apply(delta, tasks);
+                    applied++;
+                } else {
+                    System.err.println("Skipping journal record: " + line);
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Applies a change to the given tasks, as a {@link TaskList} applies it through its mutators.
+     */
+    static void apply(History.Delta delta, List<Task> tasks) {
+        BitSet indices = delta.indices();
+        switch (delta.kind()) {
+        case INSERT -> {
+            int i = 0;
+            for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+                tasks.add(index, delta.tasks().get(i++));
+            }
+        }
+        case DELETE -> removeAll(tasks, indices);
+        case MARK -> indices.stream().forEach(index -> tasks.get(index).markDone());
+        case UNMARK -> indices.stream().forEach(index -> tasks.get(index).markUndone());
+        default -> throw new IllegalArgumentException("Unknown delta " + delta.kind());
+        }
+    }
+
+    /**
+     * Removes the tasks at the given indices, shifting each remaining task only once.
+     */
+    private static void removeAll(List<Task> tasks, BitSet indices) {
+        int kept = indices.nextSetBit(0);
+        for (int i = kept; i < tasks.size(); i++) {
+            if (!indices.get(i)) {
+                tasks.set(kept++, tasks.get(i));
+            }
+        }
+        tasks.subList(kept, tasks.size()).clear();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package atri;
 
+import java.util.List;
+
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ScrollPane;
@@ -13,6 +16,9 @@ import javafx.scene.layout.VBox;
  * Controller for the main GUI.
  */
 public class MainWindow extends AnchorPane {
+    /** Listings longer than this are shown in a scrollable list instead of a single label. */
+    private static final int MAX_LABEL_ROWS = 20;
+
     @FXML
     private ScrollPane scrollPane;
     @FXML
@@ -49,10 +55,17 @@ public class MainWindow extends AnchorPane {
     private void handleUserInput() {
         String input = userInput.getText();
         String response = atri.getResponse(input);
+        List<String> rows = atri.getListedRows();
+        DialogBox reply = rows != null && rows.size() > MAX_LABEL_ROWS
+                ? DialogBox.getAtriListDialog(atri.getListedCaption(), rows, atriImage)
+                : DialogBox.getAtriDialog(response, atriImage);
         dialogContainer.getChildren().addAll(
                 DialogBox.getUserDialog(input, userImage),
-                DialogBox.getAtriDialog(response, atriImage)
+                reply
         );
         userInput.clear();
+        if (atri.isExit()) {
+            Platform.exit();
+        }
     }
 }
@@ -0,0 +1,220 @@
+package atri;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times the hot paths: every command answered by {@link Atri#getResponse}, every snapshot
+ * saved or loaded by {@link Storage}, and every line the {@link Storage.TaskParser} could not read.
+ * It also reports what the {@link DescriptionPool} saves, which is counted whether metrics are on or not.
+ *
+ * <p>Metrics are off unless the JVM is started with {@code -Datri.metrics=true} or the user types
+ * {@code stats on}. While off, each hot path only reads one volatile flag and skips its clock reads.
+ * The first time they are turned on they are also registered as the {@code atri:type=Metrics} MBean,
+ * so the JMX classes are never loaded by sessions that do not use them.
+ */
+public class Metrics implements MetricsMBean {
+    static final String OBJECT_NAME = "atri:type=Metrics";
+
+    private static final Metrics INSTANCE = new Metrics(Boolean.getBoolean("atri.metrics"));
+
+    private final Map<String, LatencyHistogram> commandLatencies = new ConcurrentHashMap<>();
+    private final AtomicBoolean isRegistered = new AtomicBoolean();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final LongAdder bytesLoaded = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+    private volatile LatencyHistogram allCommands = new LatencyHistogram();
+    private volatile LatencyHistogram saves = new LatencyHistogram();
+    private volatile LatencyHistogram loads = new LatencyHistogram();
+    private volatile boolean isEnabled;
+
+    private Metrics(boolean isEnabled) {
+        setEnabled(isEnabled);
+    }
+
+    /**
+     * Returns the metrics of this process.
+     */
+    static Metrics get() {
+        return INSTANCE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Turns recording on or off. Counts recorded so far are kept.
+     *
+     * @param isEnabled true to start recording.
+     */
+    @Override
+    public void setEnabled(boolean isEnabled) {
+        if (isEnabled && isRegistered.compareAndSet(false, true)) {
+            register();
+        }
+        this.isEnabled = isEnabled;
+    }
+
+    @Override
+    public void reset() {
+        commandLatencies.clear();
+        allCommands = new LatencyHistogram();
+        saves = new LatencyHistogram();
+        loads = new LatencyHistogram();
+        bytesSaved.reset();
+        bytesLoaded.reset();
+        parseFailures.reset();
+        DescriptionPool.get().resetCounts();
+    }
+
+    /**
+     * Records how long a command took, from parsing it to journaling its changes.
+     *
+     * @param command The command name, e.g. "list".
+     * @param nanos   The time taken.
+     */
+    void recordCommand(String command, long nanos) {
+        commandLatencies.computeIfAbsent(command, name -> new LatencyHistogram()).record(nanos);
+        allCommands.record(nanos);
+    }
+
+    /**
+     * Records a snapshot written by {@link Storage#saveTasks}.
+     */
+    void recordSave(long nanos, long bytes) {
+        saves.record(nanos);
+        bytesSaved.add(bytes);
+    }
+
+    /**
+     * Records a snapshot and journal read by {@link Storage#loadTasks}.
+     */
+    void recordLoad(long nanos, long bytes) {
+        loads.record(nanos);
+        bytesLoaded.add(bytes);
+    }
+
+    /**
+     * Counts a line that could not be parsed as a task, if metrics are on. May be called from any thread.
+     */
+    void recordParseFailure() {
+        if (isEnabled) {
+            parseFailures.increment();
+        }
+    }
+
+    /**
+     * Returns the latencies of each command that has run, by command name.
+     */
+    SortedMap<String, LatencyHistogram> getCommandHistograms() {
+        return new TreeMap<>(commandLatencies);
+    }
+
+    LatencyHistogram getSaveHistogram() {
+        return saves;
+    }
+
+    LatencyHistogram getLoadHistogram() {
+        return loads;
+    }
+
+    @Override
+    public long getCommandCount() {
+        return allCommands.getCount();
+    }
+
+    @Override
+    public double getCommandP50Millis() {
+        return toMillis(allCommands.getPercentile(0.5));
+    }
+
+    @Override
+    public double getCommandP99Millis() {
+        return toMillis(allCommands.getPercentile(0.99));
+    }
+
+    @Override
+    public double getCommandMaxMillis() {
+        return toMillis(allCommands.getMax());
+    }
+
+    @Override
+    public String[] getCommandLatencies() {
+        return getCommandHistograms().entrySet().stream()
+                .map(entry -> String.format(Locale.ROOT, "%s: count=%d p50=%.3fms p99=%.3fms max=%.3fms",
+                        entry.getKey(), entry.getValue().getCount(),
+                        toMillis(entry.getValue().getPercentile(0.5)),
+                        toMillis(entry.getValue().getPercentile(0.99)), toMillis(entry.getValue().getMax())))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getSaveCount() {
+        return saves.getCount();
+    }
+
+    @Override
+    public double getSaveP99Millis() {
+        return toMillis(saves.getPercentile(0.99));
+    }
+
+    @Override
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loads.getCount();
+    }
+
+    @Override
+    public double getLoadP99Millis() {
+        return toMillis(loads.getPercentile(0.99));
+    }
+
+    @Override
+    public long getBytesLoaded() {
+        return bytesLoaded.sum();
+    }
+
+    @Override
+    public long getParseFailureCount() {
+        return parseFailures.sum();
+    }
+
+    @Override
+    public long getDuplicateDescriptionCount() {
+        return DescriptionPool.get().getDuplicateCount();
+    }
+
+    @Override
+    public long getDescriptionBytesSaved() {
+        return DescriptionPool.get().getBytesSaved();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by another class loader, e.g. in tests; the first one stays visible.
+        } catch (JMException e) {
+            System.err.println("Error registering metrics with JMX: " + e.getMessage());
+        }
+    }
+}
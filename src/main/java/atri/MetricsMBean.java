@@ -0,0 +1,53 @@
+package atri;
+
+/**
+ * The management interface of {@link Metrics}, shown as the {@code atri:type=Metrics} MBean in JConsole or
+ * any other JMX client. Durations are in milliseconds.
+ */
+public interface MetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean isEnabled);
+
+    /**
+     * Clears every count and histogram.
+     */
+    void reset();
+
+    long getCommandCount();
+
+    double getCommandP50Millis();
+
+    double getCommandP99Millis();
+
+    double getCommandMaxMillis();
+
+    /**
+     * Returns one line per command that has run, with its count and latency percentiles.
+     */
+    String[] getCommandLatencies();
+
+    long getSaveCount();
+
+    double getSaveP99Millis();
+
+    long getBytesSaved();
+
+    long getLoadCount();
+
+    double getLoadP99Millis();
+
+    long getBytesLoaded();
+
+    long getParseFailureCount();
+
+    /**
+     * Returns how many task descriptions were replaced by an equal one already in use.
+     */
+    long getDuplicateDescriptionCount();
+
+    /**
+     * Returns roughly how many bytes of heap sharing descriptions has saved.
+     */
+    long getDescriptionBytesSaved();
+}
@@ -0,0 +1,115 @@
+package atri;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Stores each task as the object it was created as. A deleted task stays in its slot, marked as deleted,
+ * until the slot is compacted away.
+ */
+class ObjectTaskStore implements TaskStore {
+    private final ArrayList<Task> slots;
+    private final BitSet deletedSlots = new BitSet();
+
+    /**
+     * Creates a store holding the given tasks, which keeps and changes the list itself.
+     */
+    ObjectTaskStore(ArrayList<Task> tasks) {
+        this.slots = tasks;
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public boolean isDeleted(int slot) {
+        return deletedSlots.get(slot);
+    }
+
+    @Override
+    public Task get(int slot) {
+        return slots.get(slot);
+    }
+
+    @Override
+    public int getId(int slot) {
+        return slots.get(slot).getId();
+    }
+
+    @Override
+    public void setId(int slot, int id) {
+        slots.get(slot).setId(id);
+    }
+
+    @Override
+    public void add(Task task) {
+        slots.add(task);
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        slots.ensureCapacity(capacity);
+    }
+
+    @Override
+    public Task delete(int slot) {
+        deletedSlots.set(slot);
+        return slots.get(slot);
+    }
+
+    @Override
+    public void restore(int slot, Task task) {
+        slots.set(slot, task);
+        deletedSlots.clear(slot);
+    }
+
+    @Override
+    public void insert(int[] at, List<Task> tasks) {
+        int source = slots.size();
+        for (int i = 0; i < tasks.size(); i++) {
+            slots.add(null);
+        }
+        // Fill from the end, so each task already in the store moves once.
+        int target = slots.size();
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            while (source > at[i]) {
+                slots.set(--target, slots.get(--source));
+            }
+            slots.set(--target, tasks.get(i));
+        }
+    }
+
+    @Override
+    public boolean isDone(int slot) {
+        return slots.get(slot).isDone();
+    }
+
+    @Override
+    public void setDone(int slot, boolean isDone) {
+        if (isDone) {
+            slots.get(slot).markDone();
+        } else {
+            slots.get(slot).markUndone();
+        }
+    }
+
+    @Override
+    public boolean descriptionContains(int slot, String query) {
+        return slots.get(slot).getDescription().toLowerCase().contains(query);
+    }
+
+    @Override
+    public void compact() {
+        int live = 0;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (!deletedSlots.get(slot)) {
+                slots.set(live++, slots.get(slot));
+            }
+        }
+        slots.subList(live, slots.size()).clear();
+        deletedSlots.clear();
+    }
+}
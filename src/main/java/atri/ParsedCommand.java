@@ -0,0 +1,96 @@
+package atri;
+
+/**
+ * A command line split into its command and arguments by a {@link CommandTable}.
+ * Only the positions of the flags are found up front; the text of each part is cut out when it is asked for.
+ */
+class ParsedCommand {
+    private final String name;
+    private final CommandTable.Handler handler;
+    private final String input;
+    private final int textStart;
+    private final String[] flags;
+    /** The index of the space before each flag, or -1 if it is absent; null if the command takes no flags. */
+    private final int[] flagStarts;
+
+    ParsedCommand(String name, CommandTable.Handler handler, String input, int textStart, String[] flags,
+            int[] flagStarts) {
+        this.name = name;
+        this.handler = handler;
+        this.input = input;
+        this.textStart = textStart;
+        this.flags = flags;
+        this.flagStarts = flagStarts;
+    }
+
+    /**
+     * Runs the command's handler.
+     *
+     * @return The response to show.
+     */
+    String execute() {
+        return handler.handle(this);
+    }
+
+    /**
+     * Returns the name the command is registered under, in lower case.
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * Returns the whole command line as typed.
+     */
+    String commandLine() {
+        return input;
+    }
+
+    /**
+     * Returns everything after the command name and the space after it, or "" if there is nothing.
+     */
+    String text() {
+        return input.substring(textStart);
+    }
+
+    /**
+     * Returns the text before the first flag, trimmed, e.g. the description of a deadline.
+     */
+    String description() {
+        return input.substring(textStart, Math.max(textStart, nextFlagStart(textStart))).trim();
+    }
+
+    /**
+     * Returns the value given after a flag, trimmed, which runs up to the next flag or the end of the line.
+     *
+     * @param flag One of the flags the command was registered with, e.g. {@code "/by"}.
+     * @return The value, or null if the flag is not in the command line.
+     */
+    String flag(String flag) {
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i].equals(flag)) {
+                if (flagStarts[i] < 0) {
+                    return null;
+                }
+                int valueStart = flagStarts[i] + flag.length() + 2;
+                return input.substring(valueStart, Math.max(valueStart, nextFlagStart(valueStart))).trim();
+            }
+        }
+        throw new IllegalArgumentException(name + " was not registered with the flag " + flag);
+    }
+
+    /**
+     * Returns where the first flag after the given index starts, or the end of the line.
+     */
+    private int nextFlagStart(int from) {
+        int next = input.length();
+        if (flagStarts != null) {
+            for (int start : flagStarts) {
+                if (start >= from && start < next) {
+                    next = start;
+                }
+            }
+        }
+        return next;
+    }
+}
@@ -1,8 +1,9 @@
 package atri;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 
 /**
  * Parses user commands and date/time strings.
@@ -12,17 +13,32 @@ import java.time.format.DateTimeParseException;
 class Parser {
 
     /**
-     * Parses the user command into command and arguments.
-     * Splits the input line by space to separate the command keyword from the arguments.
+     * Finds where each flag first appears in a command line, in one pass and without regular expressions.
+     * A flag only counts as a word of its own, preceded and followed by a space, as in {@code " /by "};
+     * later occurrences of a flag already found are left as part of its value.
      *
-     * @param inputLine The full input line from the user.
-     * @return An array of strings, where the first element is the command \
-     *          and the second element is the arguments (can be null if no arguments).
+     * @param line  The command line.
+     * @param from  Where the arguments start.
+     * @param flags The flags to look for, e.g. {@code "/from"} and {@code "/to"}.
+     * @return For each flag, the index of the space before it, or -1 if it does not appear.
      */
-    public static String[] parseCommand(String inputLine) {
-        String[] parts = inputLine.split(" ", 2);
-        assert parts.length > 0 : "parseCommand should always return at least one element (the command)";
-        return parts;
+    public static int[] findFlags(String line, int from, String[] flags) {
+        int[] starts = new int[flags.length];
+        Arrays.fill(starts, -1);
+        int remaining = flags.length;
+        for (int i = line.indexOf(" /", from); i >= 0 && remaining > 0; i = line.indexOf(" /", i + 1)) {
+            for (int f = 0; f < flags.length; f++) {
+                String flag = flags[f];
+                int end = i + 1 + flag.length();
+                if (starts[f] < 0 && end < line.length() && line.charAt(end) == ' '
+                        && line.startsWith(flag, i + 1)) {
+                    starts[f] = i;
+                    remaining--;
+                    break;
+                }
+            }
+        }
+        return starts;
     }
 
     /**
@@ -35,39 +51,24 @@ class Parser {
      */
     public static LocalDateTime parseDateTime(String dateTimeString) {
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-            return LocalDateTime.parse(dateTimeString, formatter);
+            return DateTimeFormats.parseInput(dateTimeString);
         } catch (DateTimeParseException e) {
             return null;
         }
     }
 
     /**
-     * Parses the arguments for a deadline command.
-     * Splits the arguments string by " /by " to separate the description from the deadline time string.
-     *
-     * @param arguments The arguments string for the deadline command.
-     * @return An array of strings, where the first element is the description and the second \
-     *          element is the deadline time string.
-     */
-    public static String[] parseDeadlineArguments(String arguments) {
-        String[] parts = arguments.split(" /by ", 2);
-        assert parts.length == 2 : "parseDeadlineArguments should return exactly two parts (description and deadline)";
-        return parts;
-    }
-
-    /**
-     * Parses the arguments for an event command.
-     * Splits the arguments string by " /from " and " /to " to separate the description, \
-     *          from time string, and to time string.
+     * Parses a date string in the format "yyyy-MM-dd" into a LocalDate object.
+     * Returns null if parsing fails due to invalid format.
      *
-     * @param arguments The arguments string for the event command.
-     * @return An array of strings, where the first element is the description, \
-     *          the second is the from time string, and the third is the to time string.
+     * @param dateString The date string to parse.
+     * @return LocalDate object if parsing is successful, null otherwise.
      */
-    public static String[] parseEventArguments(String arguments) {
-        String[] parts = arguments.split(" /from | /to ");
-        assert parts.length == 3 : "parseEventArguments should return exactly three parts (description, from, and to)";
-        return parts;
+    public static LocalDate parseDate(String dateString) {
+        try {
+            return LocalDate.parse(dateString);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 }
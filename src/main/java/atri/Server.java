@@ -0,0 +1,342 @@
+package atri;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A command server for local clients, listening on the loopback interface or on a Unix domain socket.
+ * Every connection gets its own {@link Atri} over one shared {@link ConcurrentTaskList}, so clients see
+ * each other's changes and all of them are journaled to the same storage. Undo and redo are refused: the list
+ * keeps one history of every client's changes, so one client's undo could reverse another client's change.
+ *
+ * <p>The protocol is line-oriented: a client sends one command per line, and the server answers every line,
+ * blank ones included, with one response in the same order. A response is the lines of the message
+ * {@link Atri#getResponse} returns, followed by a line holding a single dot; message lines that start with
+ * a dot get another dot in front, as in SMTP. The welcome message is sent as a response when the client
+ * connects, and the server hangs up after answering {@code bye}.
+ *
+ * <p>Clients may pipeline, sending many commands without waiting for each response. The server reads all
+ * the commands that have arrived, answers them, and sends the answers in one write.
+ *
+ * <p>Each connection is served by a virtual thread when the JVM has them (Java 21 and later), so thousands
+ * of idle connections cost little more than their buffers. Older JVMs fall back to platform threads with
+ * small stacks.
+ */
+public class Server implements Closeable {
+    static final int DEFAULT_PORT = 5150;
+
+    private static final String USAGE =
+            "Usage: java -cp <classpath> atri.Server [--port <n> | --socket <path>] [--quiet]";
+    private static final String END_OF_RESPONSE = ".";
+    /** Stack size of fallback platform threads; serving a command needs far less than the default. */
+    private static final long PLATFORM_THREAD_STACK_SIZE = 256 * 1024;
+
+    private final ServerSocketChannel channel;
+    private final Path socketFile;
+    private final Storage storage;
+    private final ConcurrentTaskList taskList;
+    private final ExecutorService connections = newThreadPerTaskExecutor("atri-connection");
+
+    private Server(ServerSocketChannel channel, Path socketFile, Storage storage) {
+        this.channel = channel;
+        this.socketFile = socketFile;
+        this.storage = storage;
+        this.taskList = new ConcurrentTaskList(TaskStore.of(storage.loadTasks()));
+        taskList.setListener(storage);
+        new Atri(storage, taskList).archiveOnStartup();
+    }
+
+    /**
+     * Starts listening on the given port of the loopback interface. The tasks are loaded right away.
+     *
+     * @param port    The port, or 0 for any free one.
+     * @param storage The storage to load the tasks from and journal changes to.
+     * @return The server, which accepts connections once {@link #serve} is called.
+     * @throws IOException If the port cannot be bound.
+     */
+    static Server openTcp(int port, Storage storage) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Server(channel, null, storage);
+    }
+
+    /**
+     * Starts listening on a Unix domain socket at the given path, which is deleted again on close.
+     *
+     * @param socketFile The path of the socket, which must not exist yet.
+     * @param storage    The storage to load the tasks from and journal changes to.
+     * @return The server, which accepts connections once {@link #serve} is called.
+     * @throws IOException If the socket cannot be created.
+     */
+    static Server openUnix(Path socketFile, Storage storage) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.bind(UnixDomainSocketAddress.of(socketFile));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Server(channel, socketFile, storage);
+    }
+
+    /**
+     * Returns the address clients connect to.
+     */
+    SocketAddress getAddress() throws IOException {
+        return channel.getLocalAddress();
+    }
+
+    /**
+     * Accepts connections until the server is closed, serving each one on its own thread.
+     *
+     * @throws IOException If accepting fails for a reason other than the server being closed.
+     */
+    void serve() throws IOException {
+        while (true) {
+            SocketChannel client;
+            try {
+                client = channel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            }
+            try {
+                connections.execute(() -> serveConnection(client));
+            } catch (RejectedExecutionException e) {
+                client.close(); // Closing, so hang up on a client accepted just before.
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections, hangs up on every client, and writes any pending changes to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        connections.shutdownNow(); // Interrupting a blocked read closes its connection.
+        try {
+            connections.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (socketFile != null) {
+            Files.deleteIfExists(socketFile);
+        }
+        storage.close();
+    }
+
+    /**
+     * Answers the commands sent on one connection until the client says bye or hangs up.
+     */
+    private void serveConnection(SocketChannel client) {
+        try (client) {
+            Atri atri = new Atri(storage, taskList);
+            atri.disableUndo();
+            LineReader in = new LineReader(client);
+            StringBuilder out = new StringBuilder();
+            appendResponse(out, atri.getWelcome());
+            write(client, out);
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                appendResponse(out, atri.getResponse(line.strip()));
+                if (atri.isExit()) {
+                    break;
+                }
+                if (!in.hasBufferedInput()) {
+                    write(client, out); // Everything that was pipelined has been answered.
+                }
+            }
+            write(client, out);
+        } catch (IOException e) {
+            // The client hung up or the server is closing; either way there is nobody left to answer.
+        }
+    }
+
+    /**
+     * Appends a response in the wire format: its lines, dot-stuffed, then the end-of-response line.
+     * A line break at the very end of the response is dropped.
+     */
+    static void appendResponse(StringBuilder out, String response) {
+        for (String line : response.split("\n")) {
+            if (line.startsWith(END_OF_RESPONSE)) {
+                out.append('.');
+            }
+            out.append(line).append('\n');
+        }
+        out.append(END_OF_RESPONSE).append('\n');
+    }
+
+    /**
+     * Reads one response in the wire format, as a client does, and undoes the dot-stuffing.
+     *
+     * @param in The connection to the server.
+     * @return The response, or null if the server hung up before sending a complete one.
+     * @throws IOException If the connection cannot be read.
+     */
+    static String readResponse(BufferedReader in) throws IOException {
+        StringBuilder response = new StringBuilder();
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            if (line.equals(END_OF_RESPONSE)) {
+                return response.isEmpty() ? "" : response.substring(0, response.length() - 1);
+            }
+            response.append(line.startsWith(END_OF_RESPONSE) ? line.substring(1) : line).append('\n');
+        }
+        return null;
+    }
+
+    private static void write(ByteChannel client, StringBuilder out) throws IOException {
+        if (out.length() == 0) {
+            return;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            client.write(bytes);
+        }
+        out.setLength(0);
+    }
+
+    /**
+     * Returns an executor that runs every task on a new virtual thread, or on a new platform thread with a
+     * small stack if this JVM has no virtual threads.
+     *
+     * @param name The name of the threads.
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(null, runnable, name, PLATFORM_THREAD_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Serves the tasks in the default data file until the process is stopped.
+     * {@code --port} picks the loopback port (5150 by default), {@code --socket} serves on a Unix domain
+     * socket instead, and {@code --quiet} leaves out the storage notices.
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        Path socketFile = null;
+        boolean isQuiet = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--port") && i + 1 < args.length) {
+                    port = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--socket") && i + 1 < args.length) {
+                    socketFile = Paths.get(args[++i]);
+                } else if (args[i].equals("--quiet")) {
+                    isQuiet = true;
+                } else {
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        Storage storage = new Storage();
+        storage.setQuiet(isQuiet);
+        try {
+            Server server = socketFile == null ? openTcp(port, storage) : openUnix(socketFile, storage);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    System.err.println("Error stopping the server: " + e.getMessage());
+                }
+            }, "atri-shutdown"));
+            System.out.println("Atri is listening on " + server.getAddress());
+            server.serve();
+        } catch (IOException e) {
+            System.err.println("Error starting the server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads UTF-8 lines from a channel through a buffer that starts small and only grows for long lines,
+     * so an idle connection holds on to a kilobyte.
+     */
+    private static class LineReader {
+        private static final int INITIAL_CAPACITY = 1024;
+        private static final int MAX_LINE_LENGTH = 1 << 20;
+
+        private final ReadableByteChannel channel;
+        /** Bytes received but not yet returned, between position and limit. */
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY).flip();
+
+        LineReader(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Returns the next line without its terminator, or null once the client has hung up.
+         */
+        String readLine() throws IOException {
+            int scanned = buffer.position();
+            while (true) {
+                for (int i = scanned; i < buffer.limit(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        int end = i > buffer.position() && buffer.get(i - 1) == '\r' ? i - 1 : i;
+                        String line = new String(buffer.array(), buffer.position(), end - buffer.position(),
+                                StandardCharsets.UTF_8);
+                        buffer.position(i + 1);
+                        return line;
+                    }
+                }
+                scanned = buffer.remaining();
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    if (buffer.capacity() >= MAX_LINE_LENGTH) {
+                        throw new IOException("Line longer than " + MAX_LINE_LENGTH + " bytes");
+                    }
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                }
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    return null; // A last line without a terminator was cut off; it is not a complete command.
+                }
+            }
+        }
+
+        /**
+         * Returns true if more input has already arrived, i.e. the client pipelined another command.
+         */
+        boolean hasBufferedInput() {
+            return buffer.hasRemaining();
+        }
+    }
+}
@@ -1,49 +1,142 @@
 package atri;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Loading and saving tasks to a persistent data file.  Refactored for better
  * separation of concerns.
+ *
+ * <p>The data file holds a snapshot of the task list. Mutations made after the snapshot are
+ * appended to a {@link Journal} next to it, and a background compaction step periodically folds
+ * the journal into a fresh snapshot. Loading replays the journal on top of the snapshot.
+ * Snapshots are either {@link TextSnapshot text} or {@link BinarySnapshot binary}; the journal is always text.
+ *
+ * <p>All disk writes happen on a single background writer thread. A burst of mutations is coalesced
+ * into one journal flush per flush interval, so a slow disk never stalls the caller. In synchronous
+ * mode {@link #persist} instead waits for the flush, which keeps tests deterministic.
  */
-class Storage {
+class Storage implements TaskList.ChangeListener {
     private static final String DATA_FILE_PATH = "./data/atri.txt";
+    /** Number of journal records after which a background compaction is scheduled. */
+    private static final int COMPACTION_THRESHOLD = 1000;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+
+    private final Path dataFile;
+    /** Snapshot being written; incomplete until renamed to {@link #completedSnapshot}. */
+    private final Path partialSnapshot;
+    /** Complete snapshot whose folded journal has not been deleted yet. */
+    private final Path completedSnapshot;
+    private final Journal journal;
+    private final Archive archive;
     private final TaskParser taskParser; // Dependency Injection
+    private final ScheduledExecutorService writer;
+    private final long flushIntervalMillis;
+    private final AtomicBoolean isFlushScheduled = new AtomicBoolean();
+    private final AtomicBoolean isCompactionScheduled = new AtomicBoolean();
+    private final AtomicLong writeCount = new AtomicLong();
+    /** Version of the task list covered by the journal, shared by every front end calling {@link #persist}. */
+    private final AtomicLong persistedVersion = new AtomicLong();
+    private final AtomicLong skippedWriteCount = new AtomicLong();
+    private volatile Format format = Format.TEXT;
+    /**
+     * False once the snapshot loaded could not be verified, until a snapshot is saved again. Compaction would
+     * fold the journal into the unverified tasks and replace the file with them, so it waits until then.
+     */
+    private volatile boolean isSnapshotVerified = true;
+    private boolean isSynchronous;
+    private boolean isQuiet;
 
     /**
      * Constructor for the Storage class.
      * Initializes the TaskParser dependency.
      */
     public Storage() {
+        this(Paths.get(DATA_FILE_PATH));
+    }
+
+    /**
+     * Constructs a Storage that keeps its snapshot in the given file and its journal next to it.
+     *
+     * @param dataFile The snapshot file.
+     */
+    Storage(Path dataFile) {
+        this(dataFile, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Constructs a Storage with a custom write-behind flush interval.
+     *
+     * @param dataFile            The snapshot file.
+     * @param flushIntervalMillis How long mutations are collected before they are flushed together.
+     */
+    Storage(Path dataFile, long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.dataFile = dataFile;
+        this.partialSnapshot = dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+        this.completedSnapshot = dataFile.resolveSibling(dataFile.getFileName() + ".new");
+        this.journal = new Journal(dataFile.resolveSibling(dataFile.getFileName() + ".journal"));
+        this.archive = new Archive(dataFile.resolveSibling(dataFile.getFileName() + ".archive"));
         this.taskParser = new TaskParser();
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "atri-storage-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
-     * Loads tasks from the data file.  Returns an empty list if the file does
-     * not exist or if loading fails. Uses streams for file reading and parsing.
+     * Loads tasks from the data file and replays the journal on top of them.  Returns an empty
+     * list if neither exists or if loading fails.
      *
      * @return An ArrayList of Task objects loaded from the file.
      */
-    public ArrayList<Task> loadTasks() {
-        Path filePath = Paths.get(DATA_FILE_PATH);
-        if (!Files.exists(filePath)) {
-            return new ArrayList<>();
-        }
-
-        try (Stream<String> lines = Files.lines(filePath)) {
-            List<Task> tasks = lines.map(taskParser::parseTaskLine) // Use the injected parser
-                    .filter(Objects::nonNull)
-                    .toList();
-            System.out.println("Tasks loaded from " + DATA_FILE_PATH);
-            return new ArrayList<>(tasks);
+    public synchronized ArrayList<Task> loadTasks() {
+        Metrics metrics = Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
+            recoverInterruptedCompaction();
+            ArrayList<Task> tasks;
+            try {
+                tasks = readSnapshot(dataFile);
+                isSnapshotVerified = true;
+            } catch (DamagedSnapshotException e) {
+                tasks = e.getTasks();
+                // Ids read from a damaged file cannot be trusted, so these tasks are numbered afresh.
+                tasks.forEach(task -> task.setId(-1));
+                numberTasks(tasks);
+                isSnapshotVerified = false;
+                System.err.println("Error: " + e.getMessage() + ". A copy was kept at " + keepDamagedCopy()
+                        + "; the tasks that could be read are loaded, but they are only saved as a new snapshot"
+                        + " once you run migrate text or migrate binary.");
+            }
+            int replayed = journal.replay(tasks, taskParser);
+            if (metrics.isEnabled()) {
+                metrics.recordLoad(System.nanoTime() - start, sizeOf(dataFile) + sizeOf(journal.getPath()));
+            }
+            if (!isQuiet && (Files.exists(dataFile) || replayed > 0)) {
+                System.out.println("Tasks loaded from " + dataFile);
+            }
+            if (replayed >= COMPACTION_THRESHOLD) {
+                scheduleCompaction();
+            }
+            return tasks;
         } catch (IOException e) {
             System.out.println("Error loading tasks from file: " + e.getMessage());
             return new ArrayList<>(); // Return empty list on error
@@ -51,30 +144,347 @@ class Storage {
     }
 
     /**
-     * Saves all tasks in the provided TaskList to the persistent data file.
-     * Uses streams for writing the task data to the file.
+     * Saves all tasks in the provided TaskList as a new snapshot and discards the journal,
+     * whose records the snapshot now covers.
+     * Holds the list's write lock (see {@link TaskList#update}) until the snapshot is written, so a change made
+     * meanwhile by another thread cannot land in both the snapshot and the new journal.
      *
      * @param taskList TaskList containing the tasks to be saved.
      */
     public void saveTasks(TaskList taskList) {
-        Path filePath = Paths.get(DATA_FILE_PATH);
-        Path parentDir = filePath.getParent();
+        taskList.update(() -> {
+            synchronized (this) {
+                writeSnapshot(taskList);
+            }
+            return null;
+        });
+    }
 
+    /**
+     * Rewrites the snapshot in the given format. Later compactions keep using that format.
+     * Holds the list's write lock while doing so, as {@link #saveTasks} does.
+     *
+     * @param target   The format to convert the data file to.
+     * @param taskList The tasks to write.
+     */
+    public void migrate(Format target, TaskList taskList) {
+        taskList.update(() -> {
+            synchronized (this) {
+                format = target;
+                writeSnapshot(taskList);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Rotates the journal and writes the tasks as the new snapshot. The caller holds the list's write lock,
+     * taken before this storage's lock, the order every thread takes them in.
+     */
+    private void writeSnapshot(TaskList taskList) {
+        Metrics metrics = Metrics.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
         try {
-            if (parentDir != null && !Files.exists(parentDir)) {
-                Files.createDirectories(parentDir);
+            journal.rotate();
+            replaceSnapshot(taskList.getTasks());
+            persistedVersion.set(taskList.getVersion());
+            isSnapshotVerified = true;
+            if (metrics.isEnabled()) {
+                metrics.recordSave(System.nanoTime() - start, sizeOf(dataFile));
+            }
+            if (!isQuiet) {
+                System.out.println("Tasks saved to " + dataFile);
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving tasks to file: " + e.getMessage());
+        }
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets whether {@link #persist} waits for the flush instead of leaving it to the writer thread.
+     *
+     * @param isSynchronous true to flush before returning.
+     */
+    public void setSynchronous(boolean isSynchronous) {
+        this.isSynchronous = isSynchronous;
+    }
+
+    /**
+     * Sets whether the "Tasks loaded from" and "Tasks saved to" notices are left out. Errors are still printed.
+     *
+     * @param isQuiet true to leave the notices out.
+     */
+    public void setQuiet(boolean isQuiet) {
+        this.isQuiet = isQuiet;
+    }
+
+    /**
+     * Journals the mutations made since the last call, if there were any.
+     * Commands that did not change the task list cost no disk access at all. Otherwise a flush is
+     * scheduled on the writer thread, unless one is already pending, in which case both bursts
+     * are written together.
+     *
+     * @param taskList The task list whose changes are being journaled.
+     */
+    public void persist(TaskList taskList) {
+        long version = taskList.getVersion();
+        if (persistedVersion.getAndSet(version) == version) {
+            skippedWriteCount.incrementAndGet();
+            return;
+        }
+        if (isSynchronous) {
+            runOnWriter(() -> flushJournal(false));
+        } else if (isFlushScheduled.compareAndSet(false, true)) {
+            try {
+                writer.schedule(() -> flushJournal(false), flushIntervalMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                flushJournal(false); // Already closed; write on the caller's thread instead.
+            }
+        }
+    }
+
+    /**
+     * Writes all pending journal records and forces them to disk, waiting until that is done.
+     */
+    public void flush() {
+        runOnWriter(() -> flushJournal(true));
+    }
+
+    /**
+     * Durably flushes pending records and stops the writer thread. Safe to call more than once,
+     * e.g. from both {@code bye} and a shutdown hook.
+     */
+    public void close() {
+        flush();
+        writer.shutdown();
+        try {
+            archive.close();
+        } catch (IOException e) {
+            System.out.println("Error closing task archive: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the archive of done tasks kept next to the data file. Tasks moved there are deleted from the
+     * task list, so neither the journal nor the snapshot holds them any more.
+     */
+    public Archive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Returns the number of journal flushes that wrote to disk.
+     */
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    /**
+     * Returns the number of {@link #persist} calls skipped because nothing had changed.
+     */
+    public long getSkippedWriteCount() {
+        return skippedWriteCount.get();
+    }
+
+    /**
+     * Folds the journal into the snapshot. Runs on the writer thread; new mutations keep
+     * going to a fresh journal file while the old records are folded.
+     * Does nothing while the snapshot loaded is unverified.
+     */
+    synchronized void compact() {
+        isCompactionScheduled.set(false);
+        if (!isSnapshotVerified) {
+            return;
+        }
+        try {
+            Path rotated = journal.rotate();
+            if (rotated == null) {
+                return;
+            }
+            ArrayList<Task> tasks = readSnapshot(dataFile);
+            Journal.replay(rotated, tasks, taskParser);
+            replaceSnapshot(tasks);
+        } catch (IOException e) {
+            System.out.println("Error compacting task journal: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void changed(History.Delta delta) {
+        for (String line : Journal.records(delta)) {
+            record(line);
+        }
+    }
+
+    /**
+     * Appends a record to the journal, scheduling a compaction once enough records have built up.
+     */
+    private void record(String record) {
+        journal.append(record);
+        if (journal.getRecordCount() >= COMPACTION_THRESHOLD) {
+            scheduleCompaction();
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (isSnapshotVerified && isCompactionScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::compact);
+            } catch (RejectedExecutionException e) {
+                isCompactionScheduled.set(false); // Closed; the next session compacts instead.
             }
+        }
+    }
 
-            // Write each task's file string representation to the file
-            Files.write(filePath, taskList.getTasks().stream()
-                    .map(Task::toFileString)
-                    .toList());
-            System.out.println("Tasks saved to " + DATA_FILE_PATH);
+    /**
+     * Writes the buffered journal records. Runs on the writer thread.
+     *
+     * @param isDurable Whether to also force the records to the storage device.
+     */
+    private void flushJournal(boolean isDurable) {
+        isFlushScheduled.set(false);
+        try {
+            int written = isDurable ? journal.sync() : journal.flush();
+            if (written > 0) {
+                writeCount.incrementAndGet();
+            }
         } catch (IOException e) {
             System.out.println("Error saving tasks to file: " + e.getMessage());
         }
     }
 
+    /**
+     * Runs the given action on the writer thread and waits for it, so it is ordered after every
+     * write already queued. Runs it directly if the writer has been shut down.
+     */
+    private void runOnWriter(Runnable action) {
+        try {
+            writer.submit(action).get();
+        } catch (RejectedExecutionException e) {
+            action.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Error saving tasks to file: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Reads every task in a snapshot file, or an empty list if it does not exist.
+     */
+    private ArrayList<Task> readSnapshot(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        if (BinarySnapshot.isBinary(file)) {
+            format = Format.BINARY;
+            return numberTasks(BinarySnapshot.read(file));
+        }
+        format = Format.TEXT;
+        return numberTasks(TextSnapshot.read(file, taskParser));
+    }
+
+    /**
+     * Gives each task that was saved without an id, or with one out of order, the id after the task before
+     * it, as {@link TaskList} would. Snapshots written before ids were saved are numbered here, before the
+     * journal is replayed, so that the tasks keep the ids they had when the journal was written.
+     */
+    private static ArrayList<Task> numberTasks(ArrayList<Task> tasks) {
+        int nextId = 1;
+        for (Task task : tasks) {
+            if (task.getId() < nextId) {
+                task.setId(nextId);
+            }
+            nextId = task.getId() + 1;
+        }
+        return tasks;
+    }
+
+    /**
+     * Copies the data file next to itself for inspection, returning the copy. An earlier copy with other
+     * contents is kept, and the new one numbered after it.
+     */
+    private Path keepDamagedCopy() throws IOException {
+        Path copy = dataFile.resolveSibling(dataFile.getFileName() + ".damaged");
+        for (int i = 2; Files.exists(copy) && Files.mismatch(copy, dataFile) >= 0; i++) {
+            copy = dataFile.resolveSibling(dataFile.getFileName() + ".damaged." + i);
+        }
+        Files.copy(dataFile, copy, StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    /**
+     * Replaces the snapshot with the given tasks and deletes the rotated journal they include.
+     * The snapshot is written and forced to disk under a temporary name first, then renamed
+     * atomically, so a crash at any point leaves either the old snapshot and journal or the new
+     * snapshot on disk, never a mix of the two or a truncated file.
+     */
+    private void replaceSnapshot(List<Task> tasks) throws IOException {
+        Path parentDir = dataFile.toAbsolutePath().getParent();
+        if (parentDir != null && !Files.exists(parentDir)) {
+            Files.createDirectories(parentDir);
+        }
+
+        if (format == Format.BINARY) {
+            BinarySnapshot.write(partialSnapshot, tasks);
+        } else {
+            TextSnapshot.write(partialSnapshot, tasks);
+        }
+        Files.move(partialSnapshot, completedSnapshot, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(journal.getRotatedPath());
+        Files.move(completedSnapshot, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(parentDir);
+    }
+
+    /**
+     * Returns the size of a file in bytes, or 0 if it does not exist.
+     */
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Forces the directory entry changes made by the renames to disk. Not supported on every
+     * platform (e.g. Windows), where the rename is already durable enough.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened for syncing on this platform.
+        }
+    }
+
+    /**
+     * Finishes or rolls back a snapshot replacement that was interrupted by a crash.
+     */
+    private void recoverInterruptedCompaction() throws IOException {
+        Files.deleteIfExists(partialSnapshot);
+        if (!Files.exists(completedSnapshot)) {
+            return;
+        }
+        if (Files.exists(journal.getRotatedPath())) {
+            // The old snapshot and its journal are still intact; replay them instead.
+            Files.delete(completedSnapshot);
+        } else {
+            Files.move(completedSnapshot, dataFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Snapshot file formats. The format of an existing data file is detected when it is loaded.
+     */
+    enum Format {
+        TEXT, BINARY
+    }
 
     /**
      * Inner class responsible for parsing a single line from the data file
@@ -83,7 +493,9 @@ class Storage {
      */
     static class TaskParser {
         /**
-         * Parses a single line from the data file into a Task object.
+         * Parses a single line from the data file into a Task object, with the id the line starts with.
+         * Lines written before ids were saved start with the task type instead, and give a task without an id.
+         * Lines that cannot be parsed are left to the caller to report, so each is reported once.
          *
          * @param line The line from the file to parse.
          * @return The parsed Task object, or null if parsing fails.
@@ -91,44 +503,72 @@ class Storage {
         public Task parseTaskLine(String line) {
             try {
                 String[] parts = line.split(" \\| ");
-                String taskType = parts[0];
-                int isDone = Integer.parseInt(parts[1]);
-                String description = parts[2];
-
-                Task task;
-                switch (taskType) {
-                case "T":
-                    task = new ToDo(description);
-                    break;
-                case "D":
-                    LocalDateTime by = Parser.parseDateTime(parts[3]);
-                    if (by == null) {
-                        return null;
-                    }
-                    task = new Deadline(description, by);
-                    break;
-                case "E":
-                    LocalDateTime from = Parser.parseDateTime(parts[3]);
-                    LocalDateTime to = Parser.parseDateTime(parts[4]);
-                    if (from == null || to == null) {
-                        return null;
-                    }
-                    task = new Event(description, from, to);
-                    break;
-                default:
-                    return null; // Invalid task type
+                boolean hasId = !parts[0].isEmpty() && Character.isDigit(parts[0].charAt(0));
+                Task task = parseFields(hasId ? Arrays.copyOfRange(parts, 1, parts.length) : parts);
+                if (task == null) {
+                    Metrics.get().recordParseFailure();
+                } else if (hasId) {
+                    task.setId(Integer.parseInt(parts[0]));
                 }
+                return task;
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                Metrics.get().recordParseFailure();
+                return null;
+            }
+        }
 
-                if (isDone == 1) {
-                    task.markDone();
+        /**
+         * Parses a task from the fields of a data file line, e.g. as read from an imported file.
+         *
+         * @param parts The task type, 1 or 0 for whether it is done, the description, and then its dates.
+         * @return The parsed Task object, or null if the fields are not a valid task.
+         */
+        public Task parseTask(String[] parts) {
+            try {
+                Task task = parseFields(parts);
+                if (task == null) {
+                    Metrics.get().recordParseFailure();
                 }
                 return task;
-
             } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-                System.err.println("Error parsing task line: " + line + " - " + e.getMessage());
+                Metrics.get().recordParseFailure();
                 return null;
             }
+        }
+
+        private Task parseFields(String[] parts) {
+            String taskType = parts[0];
+            int isDone = Integer.parseInt(parts[1]);
+            String description = DescriptionPool.get().intern(parts[2]);
 
+            Task task;
+            switch (taskType) {
+            case "T":
+                task = new ToDo(description);
+                break;
+            case "D":
+                LocalDateTime by = Parser.parseDateTime(parts[3]);
+                if (by == null) {
+                    return null;
+                }
+                task = new Deadline(description, by);
+                break;
+            case "E":
+                LocalDateTime from = Parser.parseDateTime(parts[3]);
+                LocalDateTime to = Parser.parseDateTime(parts[4]);
+                if (from == null || to == null) {
+                    return null;
+                }
+                task = new Event(description, from, to);
+                break;
+            default:
+                return null; // Invalid task type
+            }
+
+            if (isDone == 1) {
+                task.markDone();
+            }
+            return task;
         }
     }
 }
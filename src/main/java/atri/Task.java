@@ -1,7 +1,6 @@
 package atri;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents an abstract task.
@@ -10,6 +9,13 @@ import java.time.format.DateTimeFormatter;
 abstract class Task {
     private String description;
     private boolean isDone;
+    /** Assigned by the TaskList holding this task; ids increase in list order. */
+    private int id = -1;
+    /**
+     * The line {@link #toString} last rendered, or null. Only its status mark can go out of date, so a line
+     * rendered while the task was in the other state, even by a thread racing a mark, is noticed and redone.
+     */
+    private String renderedLine;
 
     /**
      * Constructs a Task object.
@@ -27,6 +33,7 @@ abstract class Task {
      */
     public void markDone() {
         this.isDone = true;
+        this.renderedLine = null;
     }
 
     /**
@@ -35,6 +42,7 @@ abstract class Task {
      */
     public void markUndone() {
         this.isDone = false;
+        this.renderedLine = null;
     }
 
     /**
@@ -47,12 +55,28 @@ abstract class Task {
 
     /**
      * Returns a string representation of the task for display.
-     * Includes the task type, status, and description.
+     * The line is rendered once and reused until the task is marked or unmarked, so listing an unchanged
+     * task again does not format its dates again.
      *
      * @return A formatted string representing the task.
      */
     @Override
-    public String toString() {
+    public final String toString() {
+        String line = renderedLine;
+        // "[T][X] ...": the status mark is always the fifth character.
+        if (line == null || line.charAt(4) != (isDone ? 'X' : ' ')) {
+            line = render();
+            renderedLine = line;
+        }
+        return line;
+    }
+
+    /**
+     * Renders the task for display: its type, status and description.
+     *
+     * @return A formatted string representing the task.
+     */
+    String render() {
         String status = isDone ? "[X]" : "[ ]";
         return "[" + getTaskType() + "]" + status + " " + description;
     }
@@ -64,7 +88,15 @@ abstract class Task {
      * @return A formatted string for saving the task to a file.
      */
     public String toFileString() {
-        return String.format("%s | %d | %s", getTaskType(), isDone ? 1 : 0, description);
+        return getTaskType() + (isDone ? " | 1 | " : " | 0 | ") + description;
+    }
+
+    /**
+     * Returns the line that saves the task in a data file or journal: its id, if it has been given one,
+     * followed by {@link #toFileString()}, e.g. "12 | T | 0 | read book".
+     */
+    String toDataLine() {
+        return id > 0 ? id + " | " + toFileString() : toFileString();
     }
 
     public String getDescription() {
@@ -74,6 +106,24 @@ abstract class Task {
     public boolean isDone() {
         return isDone;
     }
+
+    /**
+     * Returns whether the task is over before the given time. Tasks without a date never are.
+     *
+     * @param time The time to compare with.
+     * @return true if the task's last date is before the given time.
+     */
+    public boolean endsBefore(LocalDateTime time) {
+        return false;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
 }
 
 /**
@@ -120,6 +170,15 @@ class Deadline extends Task {
         this.by = by;
     }
 
+    public LocalDateTime getBy() {
+        return by;
+    }
+
+    @Override
+    public boolean endsBefore(LocalDateTime time) {
+        return by.isBefore(time);
+    }
+
     /**
      * Returns the task type for Deadline tasks.
      * For Deadline tasks, the type is "D".
@@ -132,16 +191,15 @@ class Deadline extends Task {
     }
 
     /**
-     * Returns a string representation of the Deadline task for display.
+     * Renders the Deadline task for display.
      * Includes the task details and the deadline.
      *
      * @return A formatted string representing the Deadline task.
      */
     @Override
-    public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd yyyy HHmm");
-        String formattedDate = by.format(formatter);
-        return super.toString() + " (by: " + formattedDate + ")";
+    String render() {
+        StringBuilder builder = new StringBuilder(super.render()).append(" (by: ");
+        return DateTimeFormats.appendDisplay(builder, by).append(')').toString();
     }
 
     /**
@@ -152,8 +210,8 @@ class Deadline extends Task {
      */
     @Override
     public String toFileString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-        return super.toFileString() + " | " + by.format(formatter);
+        StringBuilder builder = new StringBuilder(super.toFileString()).append(" | ");
+        return DateTimeFormats.appendInput(builder, by).toString();
     }
 }
 
@@ -180,6 +238,19 @@ class Event extends Task {
         this.to = to;
     }
 
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    @Override
+    public boolean endsBefore(LocalDateTime time) {
+        return to.isBefore(time);
+    }
+
     /**
      * Returns the task type for Event tasks.
      * For Event tasks, the type is "E".
@@ -192,17 +263,16 @@ class Event extends Task {
     }
 
     /**
-     * Returns a string representation of the Event task for display.
+     * Renders the Event task for display.
      * Includes the task details and the event's time range.
      *
      * @return A formatted string representing the Event task.
      */
     @Override
-    public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd yyyy HHmm");
-        String formattedFrom = from.format(formatter);
-        String formattedTo = to.format(formatter);
-        return super.toString() + " (from: " + formattedFrom + " to: " + formattedTo + ")";
+    String render() {
+        StringBuilder builder = new StringBuilder(super.render()).append(" (from: ");
+        DateTimeFormats.appendDisplay(builder, from).append(" to: ");
+        return DateTimeFormats.appendDisplay(builder, to).append(')').toString();
     }
 
     /**
@@ -213,7 +283,8 @@ class Event extends Task {
      */
     @Override
     public String toFileString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-        return super.toFileString() + " | " + from.format(formatter) + " | " + to.format(formatter);
+        StringBuilder builder = new StringBuilder(super.toFileString()).append(" | ");
+        DateTimeFormats.appendInput(builder, from).append(" | ");
+        return DateTimeFormats.appendInput(builder, to).toString();
     }
 }
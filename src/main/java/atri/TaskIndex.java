@@ -0,0 +1,260 @@
+package atri;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Inverted index over task descriptions, answering the same case-insensitive substring queries as a
+ * linear scan.
+ * Descriptions are lower-cased once when a task is added, and the task is posted under every substring of
+ * one, two and three characters. A keyword of one or two characters is itself such a substring, so its
+ * postings are exactly the matches and cost O(k) to read for k matches, however many distinct words the
+ * descriptions hold. Longer keywords look up the postings of each of their trigrams, intersect them starting
+ * from the shortest and check only the remaining candidates. Postings hold task ids in increasing order,
+ * which is also list order, so results come out in list order without sorting.
+ */
+class TaskIndex {
+    /** Length of the longest substrings indexed. */
+    private static final int GRAM_LENGTH = 3;
+
+    private final GramMap grams = new GramMap();
+
+    /**
+     * Indexes a task. Adding tasks in increasing id order appends to the postings; a task with an older id,
+     * such as one put back by undo, is inserted into them.
+     */
+    void add(Task task) {
+        String text = task.getDescription().toLowerCase();
+        int id = task.getId();
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= text.length(); i++) {
+                grams.getOrAdd(gram(text, i, length)).add(id);
+            }
+        }
+    }
+
+    /**
+     * Removes a task that was previously added.
+     */
+    void remove(Task task) {
+        String text = task.getDescription().toLowerCase();
+        int id = task.getId();
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= text.length(); i++) {
+                Postings postings = grams.get(gram(text, i, length));
+                if (postings != null) {
+                    postings.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks whose description contains the keyword, ignoring case, in list order;
+     * or null for an empty keyword, which every task matches.
+     *
+     * @param keyword   The keyword to look for.
+     * @param tasksById Looks up an indexed task by its id.
+     */
+    ArrayList<Task> find(String keyword, IntFunction<Task> tasksById) {
+        String query = keyword.toLowerCase();
+        if (query.isEmpty()) {
+            return null;
+        }
+        if (query.length() >= GRAM_LENGTH) {
+            return findByTrigrams(query, tasksById);
+        }
+        Postings postings = grams.get(gram(query, 0, query.length()));
+        int size = postings == null ? 0 : postings.size;
+        ArrayList<Task> matches = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            matches.add(tasksById.apply(postings.ids[i]));
+        }
+        return matches;
+    }
+
+    /**
+     * Walks the shortest trigram postings, skipping ahead in the others, and checks the description of
+     * each task found in all of them. A keyword that is a single trigram needs no check.
+     */
+    private ArrayList<Task> findByTrigrams(String query, IntFunction<Task> tasksById) {
+        Postings[] lists = new Postings[query.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = grams.get(gram(query, i, GRAM_LENGTH));
+            if (lists[i] == null || lists[i].size == 0) {
+                return new ArrayList<>();
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        ArrayList<Task> matches = new ArrayList<>();
+        int[] cursors = new int[lists.length];
+        for (int i = 0; i < lists[0].size; i++) {
+            int id = lists[0].ids[i];
+            if (isInAll(lists, cursors, id)) {
+                Task task = tasksById.apply(id);
+                if (lists.length == 1 || task.getDescription().toLowerCase().contains(query)) {
+                    matches.add(task);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns true if every list after the first contains the id, moving each cursor up to it.
+     * Ids must be asked for in increasing order.
+     */
+    private static boolean isInAll(Postings[] lists, int[] cursors, int id) {
+        for (int i = 1; i < lists.length; i++) {
+            Postings postings = lists[i];
+            cursors[i] = gallop(from -> postings.ids[from] < id, cursors[i], postings.size);
+            if (cursors[i] == postings.size || postings.ids[cursors[i]] != id) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first index in [from, size) for which {@code isBefore} is false, or size if there is none,
+     * given that it is true up to some index and false after. Doubles the step from {@code from} and then
+     * binary searches, so walking forwards through postings costs little more than the distance moved.
+     */
+    private static int gallop(IntPredicate isBefore, int from, int size) {
+        int low = from;
+        int step = 1;
+        while (low + step < size && isBefore.test(low + step)) {
+            low += step;
+            step <<= 1;
+        }
+        if (low < size && !isBefore.test(low)) {
+            return low;
+        }
+        int high = Math.min(low + step, size);
+        while (low + 1 < high) {
+            int mid = (low + high) >>> 1;
+            if (isBefore.test(mid)) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Packs the substring of one to three characters at {@code start} into a key. Each character takes 16 bits
+     * and the length goes above them, so substrings of different lengths never share a key.
+     */
+    private static long gram(String text, int start, int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = key << 16 | text.charAt(i);
+        }
+        return key;
+    }
+
+    /**
+     * A sorted, duplicate-free list of task ids.
+     */
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        /**
+         * Adds an id, which is cheapest if it is no smaller than any already present; adding an id that is
+         * present does nothing.
+         */
+        void add(int id) {
+            int index = size == 0 || ids[size - 1] < id ? -size - 1 : indexOf(id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int index = indexOf(id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private int indexOf(int id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+    }
+
+    /**
+     * Open-addressing hash map from packed substrings to postings, avoiding a boxed key per lookup.
+     * Entries are never removed; a substring no task uses any more keeps empty postings.
+     */
+    private static class GramMap {
+        private long[] keys = new long[1 << 12];
+        private Postings[] values = new Postings[1 << 12];
+        private int size;
+
+        Postings get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        Postings getOrAdd(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                return getOrAdd(key);
+            }
+            size++;
+            keys[slot] = key;
+            values[slot] = new Postings();
+            return values[slot];
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ h >>> 32);
+        }
+    }
+}
@@ -1,49 +1,633 @@
 package atri;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+/**
+ * The tasks in list order, each with an id that never changes and is saved with the task, so that it still
+ * names the same task after a restart.
+ * Deleting a task leaves a tombstone in its slot instead of shifting the tasks after it, and a Fenwick tree
+ * over the slots maps list positions to slots in logarithmic time. Once half the slots are tombstones they
+ * are squeezed out in one pass, so deletion costs amortized O(log n) and looking a task up by id O(1).
+ * The tasks themselves are kept in a {@link TaskStore}, as objects or, for very large lists, in columns.
+ *
+ * <p>Every mutation records in a {@link History} how to reverse it, so that {@link #undo} and {@link #redo}
+ * take one step in time proportional to the change rather than to the list. A deleted task is put back
+ * into its tombstone, keeping its id, unless that has been compacted away.
+ */
 class TaskList {
-    private final ArrayList<Task> tasks;
+    /** Tombstones are only compacted once there are at least this many, and they fill half the slots. */
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
 
+    /** Tasks in list order, including the slots of deleted tasks not yet compacted away. */
+    private final TaskStore slots;
+    /** Fenwick tree (1-based) counting the live tasks in each range of slots. */
+    private int[] liveCounts;
+    /** Slot of the task with each id (id 1 at index 0), or -1 once it is deleted. */
+    private int[] slotsById;
+    private int size;
+    private int tombstoneCount;
+    private ChangeListener listener;
+    /** Incremented by every mutation, so callers can tell whether the list changed. */
+    private long version;
+    /** Next id to assign, one past the largest id loaded or given out; ids increase in list order. */
+    private int nextId = 1;
+    /** Built by the first find, then kept up to date; null until then so loading stays cheap. */
+    private TaskIndex index;
+    /** Built by the first date query, then kept up to date; null until then for the same reason. */
+    private TimeIndex timeIndex;
+    private final History history = History.fromSystemProperty();
+
+    /**
+     * Creates a task list holding the given tasks, keeping the ids they were saved with and giving the next
+     * ones to tasks that have none.
+     */
     public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+        this(new ObjectTaskStore(tasks));
+    }
+
+    /**
+     * Creates a task list holding the tasks in the given store, which has no deleted ones. Ids the tasks
+     * already have are kept as long as they increase in list order; any other task gets the id after the one
+     * before it.
+     */
+    TaskList(TaskStore slots) {
+        this.slots = slots;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (slots.getId(slot) < nextId) {
+                slots.setId(slot, nextId);
+            }
+            nextId = slots.getId(slot) + 1;
+        }
+        this.slotsById = new int[Math.max(16, nextId - 1)];
+        Arrays.fill(slotsById, -1); // Ids of tasks deleted before the list was saved.
+        rebuild();
     }
 
+    /**
+     * Registers the listener notified after every mutation, e.g. to journal it.
+     *
+     * @param listener The listener, or null to stop notifying.
+     */
+    public void setListener(ChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a task to the end of the list and gives it the next id.
+     */
     public void addTask(Task task) {
-        this.tasks.add(task);
+        task.setId(nextId++);
+        if (task.getId() > slotsById.length) {
+            slotsById = Arrays.copyOf(slotsById, slotsById.length * 2);
+        }
+        slotsById[task.getId() - 1] = slots.size();
+        slots.add(task);
+        appendLiveCount();
+        size++;
+        if (index != null) {
+            index.add(task);
+        }
+        if (timeIndex != null) {
+            timeIndex.add(task);
+        }
+        version++;
+        history.record(History.Delta.of(History.Kind.DELETE, size - 1, List.of()));
+        if (listener != null) {
+            listener.changed(History.Delta.of(History.Kind.INSERT, size - 1, List.of(task)));
+        }
     }
 
+    /**
+     * Adds the given tasks to the end of the list in one step, giving them the next ids in order.
+     *
+     * @param tasks The tasks to add.
+     */
+    public void addTasks(List<Task> tasks) {
+        if (nextId - 1 + tasks.size() > slotsById.length) {
+            slotsById = Arrays.copyOf(slotsById, Math.max(slotsById.length * 2, nextId - 1 + tasks.size()));
+        }
+        slots.ensureCapacity(slots.size() + tasks.size());
+        for (Task task : tasks) {
+            task.setId(nextId++);
+            slotsById[task.getId() - 1] = slots.size();
+            slots.add(task);
+            appendLiveCount();
+            if (index != null) {
+                index.add(task);
+            }
+            if (timeIndex != null) {
+                timeIndex.add(task);
+            }
+        }
+        size += tasks.size();
+        version++;
+        if (!tasks.isEmpty()) {
+            int[] ranges = {size - tasks.size(), size - 1};
+            history.record(new History.Delta(History.Kind.DELETE, ranges, List.of()));
+            if (listener != null) {
+                listener.changed(new History.Delta(History.Kind.INSERT, ranges, tasks));
+            }
+        }
+    }
+
+    /**
+     * Deletes the task at the given position, leaving a tombstone in its slot.
+     */
     public void deleteTask(int index) {
-        this.tasks.remove(index);
+        int slot = slotAt(index);
+        Task task = slots.delete(slot);
+        slotsById[task.getId() - 1] = -1;
+        for (int i = slot + 1; i <= slots.size(); i += i & -i) {
+            liveCounts[i]--;
+        }
+        size--;
+        tombstoneCount++;
+        if (this.index != null) {
+            this.index.remove(task);
+        }
+        if (timeIndex != null) {
+            timeIndex.remove(task);
+        }
+        version++;
+        history.record(History.Delta.of(History.Kind.INSERT, index, List.of(task)));
+        if (listener != null) {
+            listener.changed(History.Delta.of(History.Kind.DELETE, index, List.of()));
+        }
+        if (tombstoneCount >= MIN_TOMBSTONES_TO_COMPACT && tombstoneCount * 2 >= slots.size()) {
+            slots.compact();
+            rebuild();
+        }
+    }
+
+    /**
+     * Deletes the tasks at the given positions in one pass over the list, then compacts it once.
+     *
+     * @param indices The positions of the tasks to delete, as they are before any is deleted.
+     */
+    public void deleteTasks(BitSet indices) {
+        checkIndices(indices);
+        List<Task> deletedTasks = new ArrayList<>(indices.cardinality());
+        int position = 0;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (slots.isDeleted(slot)) {
+                continue;
+            }
+            if (indices.get(position++)) {
+                slotsById[slots.getId(slot) - 1] = -1;
+                Task task = slots.delete(slot);
+                deletedTasks.add(task);
+                if (index != null) {
+                    index.remove(task);
+                }
+                if (timeIndex != null) {
+                    timeIndex.remove(task);
+                }
+            }
+        }
+        slots.compact();
+        rebuild();
+        version++;
+        if (!deletedTasks.isEmpty()) {
+            History.Delta inverse = History.Delta.of(History.Kind.INSERT, indices, deletedTasks);
+            history.record(inverse);
+            if (listener != null) {
+                listener.changed(new History.Delta(History.Kind.DELETE, inverse.ranges(), List.of()));
+            }
+        }
+    }
+
+    /**
+     * Marks the tasks at the given positions as done or not done.
+     *
+     * @param indices The positions of the tasks to mark.
+     * @param isDone  Whether the tasks are now done.
+     */
+    public void markTasks(BitSet indices, boolean isDone) {
+        checkIndices(indices);
+        BitSet changed = new BitSet();
+        int position = 0;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (!slots.isDeleted(slot) && indices.get(position++)) {
+                boolean isChanged = slots.isDone(slot) != isDone;
+                slots.setDone(slot, isDone);
+                if (isChanged) {
+                    changed.set(position - 1);
+                    if (timeIndex != null) {
+                        timeIndex.marked(slots.get(slot));
+                    }
+                }
+            }
+        }
+        version++;
+        if (!changed.isEmpty()) {
+            history.record(History.Delta.of(isDone ? History.Kind.UNMARK : History.Kind.MARK, changed, List.of()));
+        }
+        if (listener != null && !indices.isEmpty()) {
+            listener.changed(History.Delta.of(isDone ? History.Kind.MARK : History.Kind.UNMARK, indices, List.of()));
+        }
+    }
+
+    /**
+     * Returns the positions of the tasks that satisfy the given condition.
+     */
+    public BitSet selectTasks(Predicate<Task> condition) {
+        BitSet indices = new BitSet(size);
+        int position = 0;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (!slots.isDeleted(slot)) {
+                if (condition.test(slots.get(slot))) {
+                    indices.set(position);
+                }
+                position++;
+            }
+        }
+        return indices;
     }
 
     public Task getTask(int index) {
-        return this.tasks.get(index);
+        return slots.get(slotAt(index));
+    }
+
+    /**
+     * Returns the position of the task with the given id, or -1 if there is no such task.
+     */
+    public int getIndexOfId(int id) {
+        if (id < 1 || id >= nextId || slotsById[id - 1] < 0) {
+            return -1;
+        }
+        int slot = slotsById[id - 1];
+        if (tombstoneCount == 0) {
+            return slot;
+        }
+        int position = -1;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            position += liveCounts[i];
+        }
+        return position;
+    }
+
+    public long getVersion() {
+        return this.version;
     }
 
     public int getSize() {
-        return this.tasks.size();
+        return this.size;
     }
 
     public void markTaskDone(int index) {
-        this.tasks.get(index).markDone();
+        markTask(index, true);
     }
 
     public void markTaskUndone(int index) {
-        this.tasks.get(index).markUndone();
+        markTask(index, false);
+    }
+
+    private void markTask(int index, boolean isDone) {
+        int slot = slotAt(index);
+        boolean isChanged = slots.isDone(slot) != isDone;
+        if (isChanged) {
+            history.record(History.Delta.of(isDone ? History.Kind.UNMARK : History.Kind.MARK, index, List.of()));
+        }
+        slots.setDone(slot, isDone);
+        if (isChanged && timeIndex != null) {
+            timeIndex.marked(slots.get(slot));
+        }
+        version++;
+        if (listener != null) {
+            listener.changed(History.Delta.of(isDone ? History.Kind.MARK : History.Kind.UNMARK, index, List.of()));
+        }
     }
 
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks);
+        return getTasks(0, size);
+    }
+
+    /**
+     * Returns a copy of the tasks from index {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    public List<Task> getTasks(int from, int to) {
+        List<Task> tasks = new ArrayList<>(to - from);
+        for (int slot = from < to ? slotAt(from) : 0; tasks.size() < to - from; slot++) {
+            if (!slots.isDeleted(slot)) {
+                tasks.add(slots.get(slot));
+            }
+        }
+        return tasks;
     }
 
+    /**
+     * Returns the tasks whose description contains the keyword, ignoring case, in list order.
+     */
     public ArrayList<Task> findTasks(String keyword) {
+        ArrayList<Task> matchingTasks = getTaskIndex().find(keyword, this::getTaskById);
+        return matchingTasks != null ? matchingTasks : scanTasks(keyword);
+    }
+
+    /**
+     * Returns the deadlines due from {@code from} (inclusive) to {@code to} (exclusive), by due date.
+     */
+    public List<Task> findTasksDue(LocalDateTime from, LocalDateTime to) {
+        return getTimeIndex().findDue(from, to, this::getTaskById);
+    }
+
+    /**
+     * Returns the deadlines due from {@code from} (inclusive) to {@code to} (exclusive) and the events
+     * that overlap that range, ordered by due date or start.
+     */
+    public List<Task> findTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return getTimeIndex().findBetween(from, to, this::getTaskById);
+    }
+
+    /**
+     * Returns the deadlines that are not done and were due before the given time, by due date.
+     */
+    public List<Task> findOverdueTasks(LocalDateTime now) {
+        return getTimeIndex().findOverdue(now, this::getTaskById);
+    }
+
+    /**
+     * Runs a read that must see the list in one state, such as reading its size and then a page of it.
+     * A plain TaskList has a single caller, so this just runs the read.
+     *
+     * @param action The read, which must not change the list. A {@link ConcurrentTaskList} runs it under its
+     *               read lock, so it must not wait for another thread that changes the list.
+     * @return What the read returns.
+     */
+    <T> T read(Supplier<T> action) {
+        return action.get();
+    }
+
+    /**
+     * Runs reads and changes that must happen as one step, such as resolving task numbers and then deleting
+     * those tasks. A plain TaskList has a single caller, so this just runs them.
+     *
+     * @param action The reads and changes.
+     * @return What the action returns.
+     */
+    <T> T update(Supplier<T> action) {
+        return action.get();
+    }
+
+    /**
+     * Undoes the latest change that has not been undone, recording how to redo it.
+     *
+     * @return The delta applied to undo it, or null if there is nothing to undo.
+     */
+    History.Delta undo() {
+        History.Delta delta = history.startUndo();
+        try {
+            if (delta != null) {
+                apply(delta);
+            }
+        } finally {
+            history.finish();
+        }
+        return delta;
+    }
+
+    /**
+     * Redoes the latest change undone since the last new change, recording how to undo it again.
+     *
+     * @return The delta applied to redo it, or null if there is nothing to redo.
+     */
+    History.Delta redo() {
+        History.Delta delta = history.startRedo();
+        try {
+            if (delta != null) {
+                apply(delta);
+            }
+        } finally {
+            history.finish();
+        }
+        return delta;
+    }
+
+    /**
+     * Forgets every change made so far, so that none can be undone. For changes that must not be reversed
+     * by putting the tasks back in the list, such as moving them to the archive.
+     */
+    void clearHistory() {
+        history.clear();
+    }
+
+    /**
+     * Builds the find and date indexes now instead of on first use.
+     */
+    void buildIndexes() {
+        getTaskIndex();
+        getTimeIndex();
+    }
+
+    private TaskIndex getTaskIndex() {
+        if (index == null) {
+            index = new TaskIndex();
+            getTasks().forEach(index::add);
+        }
+        return index;
+    }
+
+    private TimeIndex getTimeIndex() {
+        if (timeIndex == null) {
+            timeIndex = new TimeIndex();
+            getTasks().forEach(timeIndex::add);
+        }
+        return timeIndex;
+    }
+
+    /**
+     * Returns the tasks whose description contains the keyword, ignoring case, by checking every task.
+     */
+    ArrayList<Task> scanTasks(String keyword) {
+        String query = keyword.toLowerCase();
         ArrayList<Task> matchingTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
-                matchingTasks.add(task);
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (!slots.isDeleted(slot) && slots.descriptionContains(slot, query)) {
+                matchingTasks.add(slots.get(slot));
             }
         }
         return matchingTasks;
     }
+
+    /**
+     * Applies a delta through the mutators, which notify the listener and record the reverse delta.
+     */
+    private void apply(History.Delta delta) {
+        BitSet indices = delta.indices();
+        int first = indices.nextSetBit(0);
+        boolean isSingle = delta.count() == 1;
+        switch (delta.kind()) {
+        case INSERT -> restoreTasks(indices, delta.tasks());
+        case DELETE -> {
+            if (isSingle) {
+                deleteTask(first);
+            } else {
+                deleteTasks(indices);
+            }
+        }
+        case MARK, UNMARK -> {
+            boolean isDone = delta.kind() == History.Kind.MARK;
+            if (isSingle) {
+                markTask(first, isDone);
+            } else {
+                markTasks(indices, isDone);
+            }
+        }
+        default -> throw new IllegalArgumentException("Unknown delta " + delta.kind());
+        }
+    }
+
+    /**
+     * Puts deleted tasks back at the given positions with their old ids. If every one still has its tombstone,
+     * each is revived in place in O(log n); otherwise the tombstones are compacted away and the tasks are
+     * inserted in one pass over the list.
+     *
+     * @param indices The positions of the tasks once they are back.
+     * @param tasks   The tasks as they were deleted, in order.
+     */
+    private void restoreTasks(BitSet indices, List<Task> tasks) {
+        int[] tombstones = new int[tasks.size()];
+        boolean hasTombstones = true;
+        for (int i = 0; i < tasks.size() && hasTombstones; i++) {
+            tombstones[i] = findSlot(tasks.get(i).getId());
+            hasTombstones = tombstones[i] >= 0 && slots.isDeleted(tombstones[i]);
+        }
+        if (hasTombstones) {
+            for (int i = 0; i < tasks.size(); i++) {
+                int slot = tombstones[i];
+                slots.restore(slot, tasks.get(i));
+                slotsById[tasks.get(i).getId() - 1] = slot;
+                for (int node = slot + 1; node <= slots.size(); node += node & -node) {
+                    liveCounts[node]++;
+                }
+            }
+            size += tasks.size();
+            tombstoneCount -= tasks.size();
+        } else {
+            slots.compact();
+            // Without tombstones slots are positions; each task goes before the one now at its position.
+            int[] insertionSlots = new int[tasks.size()];
+            int i = 0;
+            for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+                insertionSlots[i] = index - i;
+                i++;
+            }
+            slots.insert(insertionSlots, tasks);
+            rebuild();
+        }
+        for (Task task : tasks) {
+            if (index != null) {
+                index.add(task);
+            }
+            if (timeIndex != null) {
+                timeIndex.add(task);
+            }
+        }
+        version++;
+        History.Delta inverse = History.Delta.of(History.Kind.DELETE, indices, List.of());
+        history.record(inverse);
+        if (listener != null) {
+            listener.changed(new History.Delta(History.Kind.INSERT, inverse.ranges(), tasks));
+        }
+    }
+
+    /**
+     * Returns the slot of the task with the given id, deleted or not, or -1 if it has been compacted away.
+     * Ids increase with the slots, so this is a binary search.
+     */
+    private int findSlot(int id) {
+        int low = 0;
+        int high = slots.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = slots.getId(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private Task getTaskById(int id) {
+        return slots.get(slotsById[id - 1]);
+    }
+
+    private void checkIndices(BitSet indices) {
+        int last = indices.length() - 1;
+        if (last >= size) {
+            throw new IndexOutOfBoundsException("Index " + last + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * Returns the slot holding the task at the given position.
+     */
+    private int slotAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        if (tombstoneCount == 0) {
+            return index;
+        }
+        // Walk down the tree for the last slot with at most index live tasks before it.
+        int slot = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(slots.size()); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= slots.size() && liveCounts[next] < remaining) {
+                slot = next;
+                remaining -= liveCounts[next];
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Sets the tree node for the slot just appended: the new task plus the live tasks in the slots it covers.
+     */
+    private void appendLiveCount() {
+        int node = slots.size();
+        if (node >= liveCounts.length) {
+            liveCounts = Arrays.copyOf(liveCounts, liveCounts.length * 2);
+        }
+        int count = 1;
+        for (int i = node - 1; i > node - (node & -node); i -= i & -i) {
+            count += liveCounts[i];
+        }
+        liveCounts[node] = count;
+    }
+
+    /**
+     * Rebuilds the tree and the id table for slots that hold no tombstones.
+     */
+    private void rebuild() {
+        liveCounts = new int[Math.max(16, Integer.highestOneBit(slots.size()) * 2)];
+        for (int node = 1; node <= slots.size(); node++) {
+            liveCounts[node] = node & -node;
+        }
+        for (int slot = 0; slot < slots.size(); slot++) {
+            slotsById[slots.getId(slot) - 1] = slot;
+        }
+        size = slots.size();
+        tombstoneCount = 0;
+    }
+
+    /**
+     * Receives every mutation applied to a TaskList, in the order they happen, as the {@link History.Delta}
+     * that makes it: the same kind of delta undo applies, so the journal needs only the one format.
+     */
+    interface ChangeListener {
+        /**
+         * Called after a mutation, e.g. adding tasks (an insertion at the end) or putting them back by undo.
+         */
+        void changed(History.Delta delta);
+    }
 }
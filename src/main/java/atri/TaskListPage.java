@@ -0,0 +1,55 @@
+package atri;
+
+import java.util.List;
+
+/**
+ * One page of the task list, as shown by the list command.
+ *
+ * @param tasks      The tasks on this page.
+ * @param firstIndex The zero-based index in the task list of the first task on this page.
+ * @param totalCount The number of tasks in the whole list.
+ * @param pageNumber The one-based number of this page.
+ * @param pageSize   The maximum number of tasks on a page.
+ * @param showsIds   Whether each task's id is shown next to its number.
+ * @param version    The {@link TaskList#getVersion version} of the list the page was read from.
+ */
+record TaskListPage(List<Task> tasks, int firstIndex, int totalCount, int pageNumber, int pageSize,
+        boolean showsIds, long version) {
+    /** Page size used when the list command is not given a limit. */
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Returns the given page of the task list, copying only the tasks on that page.
+     * A page past the end of the list is empty. The count and the tasks are read from the same state of the list,
+     * even if other front ends are changing it.
+     */
+    static TaskListPage of(TaskList taskList, int pageNumber, int pageSize, boolean showsIds) {
+        return taskList.read(() -> {
+            int totalCount = taskList.getSize();
+            int from = (int) Math.min((long) (pageNumber - 1) * pageSize, totalCount);
+            int to = (int) Math.min((long) from + pageSize, totalCount);
+            return new TaskListPage(taskList.getTasks(from, to), from, totalCount, pageNumber, pageSize, showsIds,
+                    taskList.getVersion());
+        });
+    }
+
+    /**
+     * Returns true if this is the page asked for and the list has not changed since it was read, so that it can
+     * be shown again as it is.
+     */
+    boolean isSame(int pageNumber, int pageSize, boolean showsIds, long version) {
+        return this.pageNumber == pageNumber && this.pageSize == pageSize && this.showsIds == showsIds
+                && this.version == version;
+    }
+
+    int pageCount() {
+        return Math.max(1, (int) ((totalCount + (long) pageSize - 1) / pageSize));
+    }
+
+    /**
+     * Returns true if this page holds the whole task list.
+     */
+    boolean isComplete() {
+        return tasks.size() == totalCount;
+    }
+}
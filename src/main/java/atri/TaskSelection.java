@@ -0,0 +1,82 @@
+package atri;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+/**
+ * Parses the tasks picked by a mark, unmark or delete command.
+ * A selection is {@code all}, {@code done}, {@code /before <yyyy-MM-dd[ HHmm]>}, or a comma-separated list of
+ * task numbers, ranges of task numbers such as {@code 10-250}, and task ids such as {@code #12}.
+ */
+final class TaskSelection {
+    private static final String BEFORE = "/before ";
+
+    private TaskSelection() {
+    }
+
+    /**
+     * Returns the zero-based positions of the selected tasks, which is empty if a condition matched no task.
+     *
+     * @param text     The selection typed by the user.
+     * @param taskList The tasks to select from.
+     * @return The positions, or null if the selection is malformed or names a task that does not exist.
+     */
+    static BitSet parse(String text, TaskList taskList) {
+        String selection = text.trim();
+        if (selection.equals("all")) {
+            BitSet indices = new BitSet(taskList.getSize());
+            indices.set(0, taskList.getSize());
+            return indices;
+        }
+        if (selection.equals("done")) {
+            return taskList.selectTasks(Task::isDone);
+        }
+        if (selection.startsWith(BEFORE)) {
+            LocalDateTime cutoff = parseCutoff(selection.substring(BEFORE.length()).trim());
+            return cutoff == null ? null : taskList.selectTasks(task -> task.endsBefore(cutoff));
+        }
+
+        BitSet indices = new BitSet();
+        try {
+            for (String item : selection.split(",")) {
+                if (!addItem(item.trim(), taskList, indices)) {
+                    return null;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return indices;
+    }
+
+    /**
+     * Adds the positions named by one item of a list, returning false if it names a task that does not exist.
+     */
+    private static boolean addItem(String item, TaskList taskList, BitSet indices) {
+        if (item.startsWith("#")) {
+            int index = taskList.getIndexOfId(Integer.parseInt(item.substring(1)));
+            if (index < 0) {
+                return false;
+            }
+            indices.set(index);
+            return true;
+        }
+        int dash = item.indexOf('-');
+        int first = Integer.parseInt(dash < 0 ? item : item.substring(0, dash));
+        int last = dash < 0 ? first : Integer.parseInt(item.substring(dash + 1));
+        if (first < 1 || last < first || last > taskList.getSize()) {
+            return false;
+        }
+        indices.set(first - 1, last);
+        return true;
+    }
+
+    /**
+     * Parses a cutoff given as a date, meaning the start of that day, or as a date and time.
+     */
+    private static LocalDateTime parseCutoff(String text) {
+        LocalDate date = Parser.parseDate(text);
+        return date != null ? date.atStartOfDay() : Parser.parseDateTime(text);
+    }
+}
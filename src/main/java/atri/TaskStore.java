@@ -0,0 +1,96 @@
+package atri;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the tasks of a {@link TaskList} in slots, in list order.
+ * Deleting a task empties its slot; {@link #compact} squeezes the empty slots out all at once, so a task's
+ * slot only changes then. Until then an empty slot keeps the id of its task, which {@link #restore} can put
+ * back. Tasks are only changed through the store, never through the objects it returns.
+ */
+interface TaskStore {
+    /**
+     * Returns a store holding the given tasks: a {@link ColumnarTaskStore} if the JVM is started with
+     * {@code -Datri.store=columnar}, otherwise an {@link ObjectTaskStore}.
+     *
+     * @param tasks The tasks in list order. An object store keeps the list; a columnar one empties it.
+     */
+    static TaskStore of(ArrayList<Task> tasks) {
+        if ("columnar".equals(System.getProperty("atri.store"))) {
+            return ColumnarTaskStore.from(tasks);
+        }
+        return new ObjectTaskStore(tasks);
+    }
+
+    /**
+     * Returns the number of slots, empty ones included.
+     */
+    int size();
+
+    /**
+     * Returns whether the task in the slot has been deleted.
+     */
+    boolean isDeleted(int slot);
+
+    /**
+     * Returns the task in a slot that is not empty.
+     */
+    Task get(int slot);
+
+    /**
+     * Returns the id of the task in a slot, or of the task deleted from it.
+     */
+    int getId(int slot);
+
+    void setId(int slot, int id);
+
+    /**
+     * Adds a task in a new slot at the end.
+     */
+    void add(Task task);
+
+    /**
+     * Makes room for the given number of slots, so that adding that many does not grow the store repeatedly.
+     */
+    void ensureCapacity(int capacity);
+
+    /**
+     * Empties the slot of a task that is not deleted yet.
+     *
+     * @return The deleted task.
+     */
+    Task delete(int slot);
+
+    /**
+     * Puts a deleted task back in the slot it was deleted from, which must not have been compacted away.
+     *
+     * @param task The task as it was deleted.
+     */
+    void restore(int slot, Task task);
+
+    /**
+     * Inserts tasks into new slots, moving the tasks after them down. The store must have no empty slots.
+     *
+     * @param slots The slot each task goes before, numbered as before the insertion and in increasing order;
+     *              the size of the store puts a task at the end.
+     * @param tasks The tasks to insert, in order.
+     */
+    void insert(int[] slots, List<Task> tasks);
+
+    boolean isDone(int slot);
+
+    void setDone(int slot, boolean isDone);
+
+    /**
+     * Returns whether the description of the task in a slot that is not empty contains the query, ignoring case.
+     *
+     * @param query The text to look for, already lower-cased.
+     */
+    boolean descriptionContains(int slot, String query);
+
+    /**
+     * Removes the empty slots, moving the tasks after them up in order.
+     */
+    void compact();
+}
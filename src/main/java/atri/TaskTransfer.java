@@ -0,0 +1,447 @@
+package atri;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Imports and exports tasks as CSV or JSON Lines files.
+ *
+ * <p>CSV files have the columns {@code type,done,description,date,end}, where {@code type} is T, D or E,
+ * {@code done} is 1 or 0, {@code date} is a deadline's due date or an event's start, and {@code end} is an
+ * event's end. A first line starting with {@code type,} is a header. JSON Lines files hold one object per line,
+ * e.g. {@code {"type":"D","done":false,"description":"return book","by":"2024-12-25 1800"}}, with
+ * {@code from} and {@code to} instead of {@code by} for events. Dates use the {@code yyyy-MM-dd HHmm} format.
+ *
+ * <p>Imports read the file in batches of {@link #BATCH_SIZE} lines. Each batch is validated on the common
+ * fork-join pool through {@link Storage.TaskParser#parseTask} while the next one is read, and at most one
+ * batch per worker is held at a time, so the lines held in memory do not grow with the size of the file.
+ */
+class TaskTransfer {
+    static final int BATCH_SIZE = 8192;
+    private static final String CSV_HEADER = "type,done,description,date,end";
+
+    private TaskTransfer() {
+    }
+
+    /**
+     * Reads every task in the given file, skipping lines that are not valid tasks.
+     * Nothing is added to a task list, so the caller can commit the whole import in one step.
+     *
+     * @param file   The file to read.
+     * @param format The format of the file.
+     * @param parser The parser used to validate each task.
+     * @return The tasks read and the lines rejected.
+     * @throws IOException If the file cannot be read.
+     */
+    static ImportResult importTasks(Path file, Format format, Storage.TaskParser parser) throws IOException {
+        long startTime = System.nanoTime();
+        int maxInFlight = ForkJoinPool.getCommonPoolParallelism() + 1;
+        ArrayDeque<ForkJoinTask<ParsedBatch>> inFlight = new ArrayDeque<>();
+        ParsedBatch result = new ParsedBatch(new ArrayList<>());
+        int lineNumber = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int batchStart = 1;
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (lineNumber == 1 && format == Format.CSV && line.startsWith("type,")) {
+                    batchStart = 2;
+                    continue;
+                }
+                batch.add(line);
+                if (batch.size() == BATCH_SIZE) {
+                    inFlight.add(submit(batch, batchStart, format, parser));
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    batchStart = lineNumber + 1;
+                    if (inFlight.size() >= maxInFlight) {
+                        result.merge(inFlight.remove().join());
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                inFlight.add(submit(batch, batchStart, format, parser));
+            }
+            while (!inFlight.isEmpty()) {
+                result.merge(inFlight.remove().join());
+            }
+        }
+        return new ImportResult(result.tasks, lineNumber, result.rejectedCount, result.firstRejectedLine,
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Writes the tasks to the given file, replacing it.
+     *
+     * @param file   The file to write.
+     * @param format The format to write.
+     * @param tasks  The tasks to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void exportTasks(Path file, Format format, Iterable<Task> tasks) throws IOException {
+        Path parentDir = file.toAbsolutePath().getParent();
+        if (parentDir != null) {
+            Files.createDirectories(parentDir);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+            }
+            StringBuilder line = new StringBuilder();
+            for (Task task : tasks) {
+                line.setLength(0);
+                String[] fields = toFields(task);
+                if (format == Format.CSV) {
+                    appendCsv(line, fields);
+                } else {
+                    appendJson(line, fields);
+                }
+                writer.append(line).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Returns the task's fields in the order of the CSV columns. They are taken from its getters rather than
+     * split from its data file line, whose " | " separator may also occur in the description.
+     */
+    private static String[] toFields(Task task) {
+        String type = task.getTaskType();
+        String done = task.isDone() ? "1" : "0";
+        if (task instanceof Deadline deadline) {
+            return new String[] {type, done, task.getDescription(), DateTimeFormats.formatInput(deadline.getBy())};
+        } else if (task instanceof Event event) {
+            return new String[] {type, done, task.getDescription(), DateTimeFormats.formatInput(event.getFrom()),
+                DateTimeFormats.formatInput(event.getTo())};
+        }
+        return new String[] {type, done, task.getDescription()};
+    }
+
+    private static ForkJoinTask<ParsedBatch> submit(List<String> lines, int firstLineNumber, Format format,
+            Storage.TaskParser parser) {
+        return ForkJoinPool.commonPool().submit(() -> parseBatch(lines, firstLineNumber, format, parser));
+    }
+
+    private static ParsedBatch parseBatch(List<String> lines, int firstLineNumber, Format format,
+            Storage.TaskParser parser) {
+        ParsedBatch batch = new ParsedBatch(new ArrayList<>(lines.size()));
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+            String[] fields = format == Format.CSV ? parseCsv(lines.get(i)) : parseJson(lines.get(i));
+            Task task = fields == null || !isValidDescription(fields[2]) ? null : parser.parseTask(fields);
+            if (task != null) {
+                batch.tasks.add(task);
+            } else {
+                batch.rejectedCount++;
+                if (batch.firstRejectedLine == 0) {
+                    batch.firstRejectedLine = firstLineNumber + i;
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Returns whether the description can be stored in the data file, which has one task per line
+     * and separates fields with " | ".
+     */
+    private static boolean isValidDescription(String description) {
+        return !description.isBlank() && !description.contains(" | ") && description.indexOf('\n') < 0
+                && description.indexOf('\r') < 0;
+    }
+
+    /**
+     * Splits a CSV line into the task's fields, or returns null if its quotes are unbalanced
+     * or it has fewer than three columns.
+     */
+    static String[] parseCsv(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (isQuoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    isQuoted = false;
+                }
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (isQuoted) {
+            return null;
+        }
+        while (!fields.isEmpty() && fields.get(fields.size() - 1).isEmpty()) {
+            fields.remove(fields.size() - 1);
+        }
+        return fields.size() < 3 ? null : fields.toArray(new String[0]);
+    }
+
+    /**
+     * Reads a JSON object of string and boolean values into the task's fields,
+     * or returns null if the line is not such an object.
+     */
+    static String[] parseJson(String line) {
+        JsonReader reader = new JsonReader(line);
+        String type = null;
+        String done = "0";
+        String description = null;
+        String first = "";
+        String second = "";
+        if (!reader.consume('{')) {
+            return null;
+        }
+        if (!reader.consume('}')) {
+            do {
+                String key = reader.readString();
+                if (key == null || !reader.consume(':')) {
+                    return null;
+                }
+                String value = reader.readValue();
+                if (value == null) {
+                    return null;
+                }
+                switch (key) {
+                case "type" -> type = value;
+                case "done" -> done = value.equals("true") ? "1" : value.equals("false") ? "0" : value;
+                case "description" -> description = value;
+                case "by", "from" -> first = value;
+                case "to" -> second = value;
+                default -> {
+                    // Unknown keys are ignored so files from other systems can carry extra data.
+                }
+                }
+            } while (reader.consume(','));
+            if (!reader.consume('}')) {
+                return null;
+            }
+        }
+        if (!reader.isAtEnd() || type == null || description == null) {
+            return null;
+        }
+        return new String[] {type, done, description, first, second};
+    }
+
+    private static void appendCsv(StringBuilder line, String[] fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String field = fields[i];
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0) {
+                line.append('"').append(field.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(field);
+            }
+        }
+    }
+
+    private static void appendJson(StringBuilder line, String[] fields) {
+        line.append("{\"type\":");
+        appendJsonString(line, fields[0]);
+        line.append(",\"done\":").append(fields[1].equals("1")).append(",\"description\":");
+        appendJsonString(line, fields[2]);
+        if (fields.length == 4) {
+            line.append(",\"by\":");
+            appendJsonString(line, fields[3]);
+        } else if (fields.length == 5) {
+            line.append(",\"from\":");
+            appendJsonString(line, fields[3]);
+            line.append(",\"to\":");
+            appendJsonString(line, fields[4]);
+        }
+        line.append('}');
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < ' ') {
+                line.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * File formats for import and export, chosen by the file's extension.
+     */
+    enum Format {
+        CSV, JSONL;
+
+        /**
+         * Returns the format for the given file name, or null if its extension is not recognized.
+         */
+        static Format of(String fileName) {
+            String name = fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return JSONL;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     *
+     * @param tasks             The valid tasks, in file order.
+     * @param lineCount         The number of lines read.
+     * @param rejectedCount     The number of lines that were not valid tasks.
+     * @param firstRejectedLine The one-based number of the first rejected line, or 0 if none was rejected.
+     * @param elapsedNanos      How long the import took.
+     */
+    record ImportResult(List<Task> tasks, int lineCount, int rejectedCount, int firstRejectedLine,
+            long elapsedNanos) {
+    }
+
+    /**
+     * The tasks read from some lines, and the lines rejected.
+     */
+    private static class ParsedBatch {
+        private final List<Task> tasks;
+        private int rejectedCount;
+        private int firstRejectedLine;
+
+        ParsedBatch(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        /**
+         * Appends the results of the batch that follows this one.
+         */
+        void merge(ParsedBatch next) {
+            tasks.addAll(next.tasks);
+            rejectedCount += next.rejectedCount;
+            if (firstRejectedLine == 0) {
+                firstRejectedLine = next.firstRejectedLine;
+            }
+        }
+    }
+
+    /**
+     * Reads the tokens of a single flat JSON object.
+     */
+    private static class JsonReader {
+        private final String text;
+        private int position;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Skips whitespace and then the given character if it is next, returning whether it was.
+         */
+        boolean consume(char c) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean isAtEnd() {
+            skipWhitespace();
+            return position == text.length();
+        }
+
+        /**
+         * Reads a string, a literal such as true, or a number, or returns null if there is none.
+         */
+        String readValue() {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return readString();
+            }
+            int start = position;
+            while (position < text.length() && (Character.isLetterOrDigit(text.charAt(position))
+                    || text.charAt(position) == '-' || text.charAt(position) == '.')) {
+                position++;
+            }
+            return position > start ? text.substring(start, position) : null;
+        }
+
+        /**
+         * Reads a quoted string, decoding its escapes, or returns null if there is none.
+         */
+        String readString() {
+            if (!consume('"')) {
+                return null;
+            }
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    return null;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        return null;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    position += 4;
+                }
+                default -> value.append(escaped);
+                }
+            }
+            return null;
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
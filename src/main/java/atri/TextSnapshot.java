@@ -0,0 +1,390 @@
+package atri;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the text snapshot format: one {@link Task#toDataLine()} line per task, followed by
+ * a trailer line holding the CRC32 of all task lines and the number of tasks, e.g.
+ * {@code #CRC32 1c291ca3 42}. A file whose trailer does not match, or that has none (as written by older
+ * versions), cannot be verified and is reported as damaged.
+ */
+class TextSnapshot {
+    static final String TRAILER_PREFIX = "#CRC32 ";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TRAILER_LENGTH = 64;
+    /** Files smaller than this are read into the heap; mapping them is not worth it. */
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+    private static final long MAPPED_WINDOW_SIZE = 1L << 30;
+    private static final long READ_WINDOW_SIZE = 16L * 1024 * 1024;
+    /** Smallest range worth handing to another thread; anything below two of these is parsed as one chunk. */
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final boolean IS_WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    /**
+     * Writes the tasks to the given file through a fixed-size buffer and forces them to disk.
+     * Each task is encoded straight into the buffer, so the snapshot is never held in memory as a whole.
+     *
+     * @param file  The file to create or overwrite.
+     * @param tasks The tasks to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(Path file, Iterable<Task> tasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            CRC32 crc = new CRC32();
+            int count = 0;
+            for (Task task : tasks) {
+                CharBuffer line = CharBuffer.wrap(task.toDataLine() + "\n");
+                encoder.reset();
+                while (encoder.encode(line, buffer, true) == CoderResult.OVERFLOW) {
+                    drain(channel, buffer, crc);
+                }
+                count++;
+            }
+            drain(channel, buffer, crc);
+
+            String trailer = trailer(crc, count) + "\n";
+            channel.write(ByteBuffer.wrap(trailer.getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads the tasks in the given file, reporting every line that cannot be parsed, and checks them against
+     * the checksum trailer.
+     * The file is memory-mapped and scanned byte by byte for the {@code " | "} delimiters and newlines;
+     * only descriptions are decoded into strings, and dates are parsed straight from the bytes.
+     * Lines that do not follow the exact layout written by {@link #write} go through {@code parser} instead.
+     * Large files are split into newline-aligned chunks that are parsed in parallel on the common
+     * fork-join pool and merged back in file order.
+     *
+     * @param file   The snapshot file.
+     * @param parser The parser used for lines that are not in the standard layout.
+     * @return The tasks that could be read.
+     * @throws DamagedSnapshotException If the trailer is missing or does not match; it holds the tasks read.
+     * @throws IOException If the file cannot be read.
+     */
+    static ArrayList<Task> read(Path file, Storage.TaskParser parser) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        int lineCount = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long trailerStart = findTrailer(channel, size);
+            long position = 0;
+            while (position < trailerStart) {
+                long remaining = trailerStart - position;
+                ByteBuffer window = readWindow(channel, position, Math.min(remaining, windowSize(size)));
+                int end = window.limit() == remaining ? window.limit() : afterLastNewline(window);
+                if (end == 0) {
+                    throw new IOException("Line too long at offset " + position + " in " + file);
+                }
+                List<ForkJoinTask<ParsedChunk>> chunks = new ArrayList<>();
+                int chunkStart = 0;
+                for (int chunkEnd : chunkEnds(window, end)) {
+                    int from = chunkStart;
+                    chunks.add(ForkJoinPool.commonPool()
+                            .submit(() -> new LineScanner(parser).scan(window, from, chunkEnd)));
+                    chunkStart = chunkEnd;
+                }
+                // The checksum is sequential, so compute it here while the chunks are being parsed.
+                crc.update(window.duplicate().limit(end));
+                for (ForkJoinTask<ParsedChunk> chunk : chunks) {
+                    lineCount = chunk.join().mergeInto(tasks, lineCount, file);
+                }
+                position += end;
+            }
+
+            if (trailerStart == size) {
+                throw new DamagedSnapshotException(file + " has no checksum", tasks);
+            }
+            String trailer = readString(channel, trailerStart, size).strip();
+            if (!trailer.equals(trailer(crc, lineCount))) {
+                throw new DamagedSnapshotException(file + " does not match its checksum", tasks);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the offset of the trailer line, or {@code size} if the file has none.
+     */
+    private static long findTrailer(FileChannel channel, long size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        long tailStart = Math.max(0, size - MAX_TRAILER_LENGTH);
+        ByteBuffer tail = readWindow(channel, tailStart, size - tailStart);
+        int lineStart = tail.limit() - 1;
+        while (lineStart > 0 && tail.get(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+        if (lineStart == 0 && tailStart > 0) {
+            return size;
+        }
+        for (int i = 0; i < TRAILER_PREFIX.length(); i++) {
+            if (lineStart + i >= tail.limit() || tail.get(lineStart + i) != TRAILER_PREFIX.charAt(i)) {
+                return size;
+            }
+        }
+        return tailStart + lineStart;
+    }
+
+    private static String readString(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+        while (bytes.hasRemaining() && channel.read(bytes, from + bytes.position()) >= 0) {
+            // Keep reading until the range is filled.
+        }
+        return new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns up to {@code length} bytes of the file from {@code position}, memory-mapped where that is safe.
+     * Windows refuses to replace a file that is still mapped, and a mapping is only released by the
+     * garbage collector, so there (and for small files) the bytes are read into a heap buffer instead.
+     */
+    private static ByteBuffer readWindow(FileChannel channel, long position, long length) throws IOException {
+        if (length >= MAP_THRESHOLD && !IS_WINDOWS) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // Keep reading until the window is filled.
+        }
+        return buffer.flip();
+    }
+
+    private static long windowSize(long fileSize) {
+        return fileSize >= MAP_THRESHOLD && !IS_WINDOWS ? MAPPED_WINDOW_SIZE : READ_WINDOW_SIZE;
+    }
+
+    /**
+     * Splits {@code buffer[0, end)} into chunks of roughly equal size that each end just past a newline
+     * (or at {@code end}), one or a few per processor.
+     *
+     * @return The end offset of each chunk, in order.
+     */
+    private static List<Integer> chunkEnds(ByteBuffer buffer, int end) {
+        int chunkCount = (int) Math.min(4L * Runtime.getRuntime().availableProcessors(), end / MIN_CHUNK_SIZE);
+        List<Integer> ends = new ArrayList<>();
+        for (int i = 1; i < chunkCount; i++) {
+            int boundary = (int) ((long) end * i / chunkCount);
+            while (boundary < end && buffer.get(boundary - 1) != '\n') {
+                boundary++;
+            }
+            if (ends.isEmpty() ? boundary > 0 : boundary > ends.get(ends.size() - 1)) {
+                ends.add(boundary);
+            }
+        }
+        if (ends.isEmpty() || ends.get(ends.size() - 1) < end) {
+            ends.add(end);
+        }
+        return ends;
+    }
+
+    /**
+     * Returns the index just past the last newline in the buffer, or 0 if it has none.
+     */
+    private static int afterLastNewline(ByteBuffer buffer) {
+        for (int i = buffer.limit() - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static String trailer(CRC32 crc, int count) {
+        return String.format(Locale.ROOT, "%s%08x %d", TRAILER_PREFIX, crc.getValue(), count);
+    }
+
+    /**
+     * Writes out the buffer's contents, adding them to the checksum, and clears it for reuse.
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Parses task lines straight out of a byte buffer.
+     */
+    private static class LineScanner {
+        private static final int HEADER_LENGTH = 8; // "T | 0 | "
+        private static final int MAX_ID_DIGITS = 9; // Longer ids go to the string-based parser.
+        private static final int DATE_FIELD_LENGTH = DateTimeFormats.INPUT_LENGTH + 3; // " | yyyy-MM-dd HHmm"
+
+        private final Storage.TaskParser parser;
+        private byte[] scratch = new byte[256];
+
+        LineScanner(Storage.TaskParser parser) {
+            this.parser = parser;
+        }
+
+        /**
+         * Parses every line in {@code buffer[start, end)}. Only absolute reads are used on the buffer,
+         * so several scanners can work on disjoint ranges of it at once.
+         */
+        ParsedChunk scan(ByteBuffer buffer, int start, int end) {
+            ParsedChunk chunk = new ParsedChunk();
+            int lineStart = start;
+            while (lineStart < end) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int next = lineEnd + 1;
+                if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                chunk.lineCount++;
+                Task task = parseLine(buffer, lineStart, lineEnd);
+                if (task == null) {
+                    chunk.unreadableLines.add(new UnreadableLine(chunk.lineCount, decode(buffer, lineStart, lineEnd)));
+                } else {
+                    chunk.tasks.add(task);
+                }
+                lineStart = next;
+            }
+            return chunk;
+        }
+
+        /**
+         * Parses one line laid out as written by {@link Task#toDataLine()}, or as written before ids were
+         * saved, falling back to the string-based parser for anything else.
+         */
+        private Task parseLine(ByteBuffer buffer, int start, int end) {
+            int id = 0;
+            int taskStart = start;
+            while (taskStart < end && taskStart - start < MAX_ID_DIGITS && isDigit(buffer.get(taskStart))) {
+                id = id * 10 + buffer.get(taskStart++) - '0';
+            }
+            Task task = null;
+            if (taskStart == start) {
+                task = parseStandardLine(buffer, start, end);
+            } else if (taskStart + 3 < end && isSeparator(buffer, taskStart) && id > 0) {
+                task = parseStandardLine(buffer, taskStart + 3, end);
+                if (task != null) {
+                    task.setId(id);
+                }
+            }
+            return task != null ? task : parser.parseTaskLine(decode(buffer, start, end));
+        }
+
+        private Task parseStandardLine(ByteBuffer buffer, int start, int end) {
+            if (end - start <= HEADER_LENGTH || !isSeparator(buffer, start + 1) || !isSeparator(buffer, start + 5)) {
+                return null;
+            }
+            byte done = buffer.get(start + 4);
+            if (done != '0' && done != '1') {
+                return null;
+            }
+            int descriptionStart = start + HEADER_LENGTH;
+            Task task;
+            switch (buffer.get(start)) {
+            case 'T':
+                task = new ToDo(description(buffer, descriptionStart, end));
+                break;
+            case 'D': {
+                int dateField = end - DATE_FIELD_LENGTH;
+                LocalDateTime by = dateField >= descriptionStart && isSeparator(buffer, dateField)
+                        ? DateTimeFormats.parseInput(buffer, dateField + 3) : null;
+                if (by == null) {
+                    return null;
+                }
+                task = new Deadline(description(buffer, descriptionStart, dateField), by);
+                break;
+            }
+            case 'E': {
+                int toField = end - DATE_FIELD_LENGTH;
+                int fromField = toField - DATE_FIELD_LENGTH;
+                if (fromField < descriptionStart || !isSeparator(buffer, fromField) || !isSeparator(buffer, toField)) {
+                    return null;
+                }
+                LocalDateTime from = DateTimeFormats.parseInput(buffer, fromField + 3);
+                LocalDateTime to = DateTimeFormats.parseInput(buffer, toField + 3);
+                if (from == null || to == null) {
+                    return null;
+                }
+                task = new Event(description(buffer, descriptionStart, fromField), from, to);
+                break;
+            }
+            default:
+                return null;
+            }
+            if (done == '1') {
+                task.markDone();
+            }
+            return task;
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+
+        private static boolean isSeparator(ByteBuffer buffer, int index) {
+            return buffer.get(index) == ' ' && buffer.get(index + 1) == '|' && buffer.get(index + 2) == ' ';
+        }
+
+        private String description(ByteBuffer buffer, int start, int end) {
+            return DescriptionPool.get().intern(decode(buffer, start, end));
+        }
+
+        private String decode(ByteBuffer buffer, int start, int end) {
+            int length = end - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(start, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The tasks parsed from one chunk of a file, with line numbers relative to the chunk.
+     */
+    private static class ParsedChunk {
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final List<UnreadableLine> unreadableLines = new ArrayList<>();
+        private int lineCount;
+
+        /**
+         * Appends this chunk's tasks and reports its unreadable lines with their line numbers in the file.
+         *
+         * @param lineOffset The number of lines in the file before this chunk.
+         * @return The number of lines in the file up to the end of this chunk.
+         */
+        int mergeInto(ArrayList<Task> allTasks, int lineOffset, Path file) {
+            allTasks.addAll(tasks);
+            for (UnreadableLine line : unreadableLines) {
+                System.out.println("Skipping unreadable line " + (lineOffset + line.lineNumber()) + " in " + file
+                        + ": " + line.text());
+            }
+            return lineOffset + lineCount;
+        }
+    }
+
+    private record UnreadableLine(int lineNumber, String text) {
+    }
+}
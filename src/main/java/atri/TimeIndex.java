@@ -0,0 +1,243 @@
+package atri;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+
+/**
+ * Index over the dates of deadlines and events, answering range queries without scanning the task list.
+ * Deadlines are kept in a sorted set, so a range of k of them is found in O(log n + k); those not done are
+ * also kept in a set of their own, so the k overdue ones are found in O(log n + k) too. Events are kept in
+ * an interval tree (a treap ordered by start and augmented with the latest end in each subtree) that prunes
+ * every subtree ending before the range or starting after it, costing at most O(log n) per event found.
+ * Both are keyed by epoch minute and then task id, so tasks at the same minute come out in list order.
+ * Only the keys are kept; tasks are looked up by id when found, so the index never holds a stale copy.
+ * To-dos have no date and are not indexed.
+ */
+class TimeIndex {
+    /** Ids take the low bits of a key; epoch minutes for years 1 to 9999 fit in the rest. */
+    private static final int ID_BITS = 31;
+    /** Query bounds further out than this, e.g. {@code upcoming 999999w}, are clamped so keys do not overflow. */
+    private static final long MAX_MINUTE = (1L << (Long.SIZE - 1 - ID_BITS)) - 1;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private final TreeSet<Long> deadlines = new TreeSet<>();
+    /** The keys in {@link #deadlines} of the deadlines that are not done. */
+    private final TreeSet<Long> undoneDeadlines = new TreeSet<>();
+    private EventNode events;
+
+    /**
+     * Indexes a task if it has a date.
+     */
+    void add(Task task) {
+        if (task instanceof Deadline deadline) {
+            long key = key(minute(deadline.getBy()), task.getId());
+            deadlines.add(key);
+            if (!task.isDone()) {
+                undoneDeadlines.add(key);
+            }
+        } else if (task instanceof Event event) {
+            EventNode node = new EventNode(minute(event.getFrom()), minute(event.getTo()), task.getId());
+            EventNode[] parts = split(events, node.key);
+            events = merge(merge(parts[0], node), parts[1]);
+        }
+    }
+
+    /**
+     * Removes a task that was previously added.
+     */
+    void remove(Task task) {
+        if (task instanceof Deadline deadline) {
+            long key = key(minute(deadline.getBy()), task.getId());
+            deadlines.remove(key);
+            undoneDeadlines.remove(key);
+        } else if (task instanceof Event event) {
+            long key = key(minute(event.getFrom()), task.getId());
+            EventNode[] before = split(events, key);
+            EventNode[] after = split(before[1], key + 1);
+            events = merge(before[0], after[1]);
+        }
+    }
+
+    /**
+     * Updates the index after a task that was previously added was marked done or not done.
+     */
+    void marked(Task task) {
+        if (task instanceof Deadline deadline) {
+            long key = key(minute(deadline.getBy()), task.getId());
+            if (task.isDone()) {
+                undoneDeadlines.remove(key);
+            } else {
+                undoneDeadlines.add(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the deadlines due from {@code from} (inclusive) to {@code to} (exclusive), by due date.
+     *
+     * @param tasksById Looks up an indexed task by its id.
+     */
+    List<Task> findDue(LocalDateTime from, LocalDateTime to, IntFunction<Task> tasksById) {
+        List<Task> tasks = new ArrayList<>();
+        for (long key : dueKeys(from, to)) {
+            tasks.add(tasksById.apply(id(key)));
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the deadlines due from {@code from} (inclusive) to {@code to} (exclusive) and the events that
+     * overlap that range, ordered by due date or start.
+     *
+     * @param tasksById Looks up an indexed task by its id.
+     */
+    List<Task> findBetween(LocalDateTime from, LocalDateTime to, IntFunction<Task> tasksById) {
+        long fromMinute = minute(from);
+        long toMinute = minute(to);
+        List<Long> due = new ArrayList<>(dueKeys(from, to));
+        List<EventNode> overlapping = new ArrayList<>();
+        collectOverlapping(events, fromMinute, toMinute, overlapping);
+
+        List<Task> tasks = new ArrayList<>(due.size() + overlapping.size());
+        int i = 0;
+        int j = 0;
+        while (i < due.size() || j < overlapping.size()) {
+            boolean isDeadlineNext = j == overlapping.size() || i < due.size() && due.get(i) < overlapping.get(j).key;
+            tasks.add(tasksById.apply(id(isDeadlineNext ? due.get(i++) : overlapping.get(j++).key)));
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the deadlines due before the given time that are not done, by due date.
+     *
+     * @param tasksById Looks up an indexed task by its id.
+     */
+    List<Task> findOverdue(LocalDateTime now, IntFunction<Task> tasksById) {
+        List<Task> tasks = new ArrayList<>();
+        for (long key : undoneDeadlines.headSet(key(minute(now), 0))) {
+            tasks.add(tasksById.apply(id(key)));
+        }
+        return tasks;
+    }
+
+    private SortedSet<Long> dueKeys(LocalDateTime from, LocalDateTime to) {
+        return deadlines.subSet(key(minute(from), 0), key(minute(to), 0));
+    }
+
+    private static long minute(LocalDateTime time) {
+        long minute = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+        return Math.max(-MAX_MINUTE, Math.min(MAX_MINUTE, minute));
+    }
+
+    private static long key(long minute, int id) {
+        return (minute << ID_BITS) + id;
+    }
+
+    private static int id(long key) {
+        return (int) (key & ID_MASK);
+    }
+
+    /**
+     * Adds the events in the subtree that start before {@code toMinute} and end at or after
+     * {@code fromMinute}, in order. Subtrees that end too early, and right subtrees of events that start
+     * too late, are skipped.
+     */
+    private static void collectOverlapping(EventNode node, long fromMinute, long toMinute, List<EventNode> out) {
+        if (node == null || node.maxEnd < fromMinute) {
+            return;
+        }
+        collectOverlapping(node.left, fromMinute, toMinute, out);
+        if (node.start < toMinute) {
+            if (node.end >= fromMinute) {
+                out.add(node);
+            }
+            collectOverlapping(node.right, fromMinute, toMinute, out);
+        }
+    }
+
+    /**
+     * Splits a subtree into the nodes with keys below the given key and the rest.
+     */
+    private static EventNode[] split(EventNode node, long key) {
+        if (node == null) {
+            return new EventNode[2];
+        }
+        EventNode[] parts;
+        if (node.key < key) {
+            parts = split(node.right, key);
+            node.right = parts[0];
+            parts[0] = node;
+        } else {
+            parts = split(node.left, key);
+            node.left = parts[1];
+            parts[1] = node;
+        }
+        node.update();
+        return parts;
+    }
+
+    /**
+     * Joins two subtrees, all of whose keys in {@code left} are below those in {@code right}.
+     */
+    private static EventNode merge(EventNode left, EventNode right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static class EventNode {
+        private final long key;
+        private final long start;
+        private final long end;
+        /** Heap order of the treap, derived from the key so that the tree stays balanced in expectation. */
+        private final long priority;
+        private long maxEnd;
+        private EventNode left;
+        private EventNode right;
+
+        EventNode(long start, long end, int id) {
+            this.key = key(start, id);
+            this.start = start;
+            this.end = end;
+            this.priority = mix(key);
+            this.maxEnd = end;
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+
+        /**
+         * Scrambles the bits of a key (the finalizer of SplitMix64).
+         */
+        private static long mix(long key) {
+            long z = key * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
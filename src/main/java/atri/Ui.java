@@ -1,11 +1,21 @@
 package atri;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * UI class
  */
 public class Ui {
+    /** The last page passed to {@link #getTaskListPage} and its text. */
+    private TaskListPage renderedPage;
+    private String renderedPageText;
 
     /**
      * Returns a message for a task that has been marked as done.
@@ -39,6 +49,40 @@ public class Ui {
                 + "\nNow there are " + remainingTasks + (remainingTasks == 1 ? " task" : " tasks") + " remaining.";
     }
 
+    /**
+     * Returns a message for several tasks marked as done or not done at once.
+     *
+     * @param taskCount The number of tasks marked.
+     * @param isDone Whether the tasks were marked as done.
+     * @return A confirmation message.
+     */
+    public String getTasksMarkedMessage(int taskCount, boolean isDone) {
+        return (isDone ? "Great! I've marked " : "Okay, I've reset ") + taskCount + " tasks"
+                + (isDone ? " as complete." : " to not done.");
+    }
+
+    /**
+     * Returns a message for several tasks deleted at once.
+     *
+     * @param taskCount The number of tasks deleted.
+     * @param remainingTasks The number of tasks remaining.
+     * @return A confirmation message.
+     */
+    public String getTasksDeletedMessage(int taskCount, int remainingTasks) {
+        return "Noted. I've removed " + taskCount + " tasks."
+                + "\nNow there are " + remainingTasks + (remainingTasks == 1 ? " task" : " tasks") + " remaining.";
+    }
+
+    /**
+     * Returns a message for a selection that matched no task.
+     *
+     * @param arguments The selection that was entered.
+     * @return A message saying nothing was changed.
+     */
+    public String getNoTasksSelectedMessage(String arguments) {
+        return "No tasks match '" + arguments.trim() + "', so I've left your list as it is.";
+    }
+
     /**
      * Returns a message for a task that has been added.
      *
@@ -62,6 +106,30 @@ public class Ui {
         return (index + 1) + ". " + task;
     }
 
+    /**
+     * Returns a string representation of a task list item, optionally with the task's id.
+     *
+     * @param index The index of the task.
+     * @param task The task to display.
+     * @param showsId Whether to show the task's id after its number.
+     * @return A formatted list item.
+     */
+    public String getTaskListItem(int index, Task task, boolean showsId) {
+        return showsId ? (index + 1) + ". #" + task.getId() + " " + task : getTaskListItem(index, task);
+    }
+
+    /**
+     * Appends a task list item as {@link #getTaskListItem(int, Task, boolean)} returns it, without making a
+     * string for it first.
+     */
+    private static void appendTaskListItem(StringBuilder sb, int index, Task task, boolean showsId) {
+        sb.append(index + 1).append(". ");
+        if (showsId) {
+            sb.append('#').append(task.getId()).append(' ');
+        }
+        sb.append(task);
+    }
+
     /**
      * Returns the header message for the task list.
      *
@@ -71,6 +139,219 @@ public class Ui {
         return "Here are the tasks in your list:";
     }
 
+    /**
+     * Returns one page of the task list, with a footer saying where it is if the list has other pages.
+     * The text of the last page rendered is kept, so showing that page again costs nothing.
+     *
+     * @param page The page to show.
+     * @return The header followed by one line per task on the page.
+     */
+    public String getTaskListPage(TaskListPage page) {
+        if (page == renderedPage) {
+            return renderedPageText;
+        }
+        StringBuilder sb = new StringBuilder(getTaskListMessage()).append("\n");
+        List<Task> tasks = page.tasks();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (i > 0) {
+                sb.append("\n");
+            }
+            appendTaskListItem(sb, page.firstIndex() + i, tasks.get(i), page.showsIds());
+        }
+        if (!page.isComplete()) {
+            sb.append("\n").append(getTaskListFooter(page));
+        }
+        renderedPage = page;
+        renderedPageText = sb.toString();
+        return renderedPageText;
+    }
+
+    /**
+     * Returns the lines of a task list page, each rendered only when it is read.
+     *
+     * @param page The page to show.
+     * @return A read-only view with one line per task on the page.
+     */
+    public List<String> getTaskListRows(TaskListPage page) {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return getTaskListItem(page.firstIndex() + index, page.tasks().get(index), page.showsIds());
+            }
+
+            @Override
+            public int size() {
+                return page.tasks().size();
+            }
+        };
+    }
+
+    /**
+     * Returns the header for a task list page, followed by the footer if the list has other pages.
+     *
+     * @param page The page to show.
+     * @return A caption for the page.
+     */
+    public String getTaskListCaption(TaskListPage page) {
+        return page.isComplete() ? getTaskListMessage() : getTaskListMessage() + "\n" + getTaskListFooter(page);
+    }
+
+    /**
+     * Returns a line saying which tasks a page of the task list holds.
+     *
+     * @param page The page shown.
+     * @return A footer string.
+     */
+    public String getTaskListFooter(TaskListPage page) {
+        int first = page.firstIndex() + 1;
+        int last = page.firstIndex() + page.tasks().size();
+        return "Showing tasks " + first + "-" + last + " of " + page.totalCount()
+                + " (page " + page.pageNumber() + " of " + page.pageCount() + "). Type 'list <page>' to see more.";
+    }
+
+    /**
+     * Returns an error message for a page number past the end of the task list.
+     *
+     * @param pageNumber The page asked for.
+     * @param pageCount The number of pages in the list.
+     * @return An error message.
+     */
+    public String getPageOutOfRangeError(int pageNumber, int pageCount) {
+        return "There's no page " + pageNumber + ". Your list only has " + pageCount
+                + (pageCount == 1 ? " page." : " pages.");
+    }
+
+    /**
+     * Returns a message for a data file that has been converted to another format.
+     *
+     * @param format The new format.
+     * @param taskCount The number of tasks written.
+     * @return A confirmation message.
+     */
+    public String getMigratedMessage(String format, int taskCount) {
+        return "Done! I've rewritten all " + taskCount + (taskCount == 1 ? " task" : " tasks")
+                + " in the " + format + " format.";
+    }
+
+    /**
+     * Returns a report on an import: how many tasks were added, how fast, and how many lines were rejected.
+     *
+     * @param result The outcome of the import.
+     * @param taskCount The total number of tasks now.
+     * @return A report message.
+     */
+    public String getImportedMessage(TaskTransfer.ImportResult result, int taskCount) {
+        int importedCount = result.tasks().size();
+        StringBuilder sb = new StringBuilder("Imported ").append(importedCount)
+                .append(importedCount == 1 ? " task" : " tasks").append(" from ").append(result.lineCount())
+                .append(result.lineCount() == 1 ? " line" : " lines").append(" in ")
+                .append(getDurationAndRate(result.lineCount(), "lines", result.elapsedNanos())).append('.');
+        if (result.rejectedCount() > 0) {
+            sb.append("\nRejected ").append(result.rejectedCount())
+                    .append(result.rejectedCount() == 1 ? " line" : " lines")
+                    .append(" that weren't valid tasks, starting at line ").append(result.firstRejectedLine())
+                    .append('.');
+        }
+        sb.append("\nWe're now tracking ").append(taskCount).append(taskCount == 1 ? " task" : " tasks").append('.');
+        return sb.toString();
+    }
+
+    /**
+     * Returns a report on an export.
+     *
+     * @param taskCount The number of tasks written.
+     * @param fileName The file written.
+     * @param elapsedNanos How long the export took.
+     * @return A report message.
+     */
+    public String getExportedMessage(int taskCount, String fileName, long elapsedNanos) {
+        return "Exported " + taskCount + (taskCount == 1 ? " task" : " tasks") + " to " + fileName + " in "
+                + getDurationAndRate(taskCount, "tasks", elapsedNanos) + ".";
+    }
+
+    private static String getDurationAndRate(int count, String unit, long elapsedNanos) {
+        long millis = elapsedNanos / 1_000_000;
+        long perSecond = elapsedNanos == 0 ? 0 : Math.round(count * 1e9 / elapsedNanos);
+        return millis + " ms (" + perSecond + " " + unit + "/s)";
+    }
+
+    /**
+     * Returns an error message for an import or export that could not read or write its file.
+     *
+     * @param fileName The file named in the command.
+     * @param e The error that stopped the transfer.
+     * @return An error message.
+     */
+    public String getTransferError(String fileName, IOException e) {
+        return "I couldn't use '" + fileName + "' (" + e.getClass().getSimpleName() + ": " + e.getMessage()
+                + "). Your task list is unchanged.";
+    }
+
+    /**
+     * Returns a table of how often each command ran and how long it took, followed by the storage timings,
+     * the number of unreadable task lines and how much heap shared descriptions save.
+     *
+     * @param metrics The metrics recorded so far.
+     * @return The table, or a hint to turn metrics on if nothing has been recorded.
+     */
+    public String getStatsMessage(Metrics metrics) {
+        Map<String, LatencyHistogram> commands = metrics.getCommandHistograms();
+        if (!metrics.isEnabled() && commands.isEmpty()) {
+            return "I'm not measuring anything right now. Type 'stats on' to start.";
+        }
+        StringBuilder sb = new StringBuilder("Here's how long your commands took:\n");
+        sb.append(String.format(Locale.ROOT, "  %-10s %7s %10s %10s %10s\n", "command", "count", "p50", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram> entry : commands.entrySet()) {
+            LatencyHistogram latencies = entry.getValue();
+            sb.append(String.format(Locale.ROOT, "  %-10s %7d %10s %10s %10s\n", entry.getKey(),
+                    latencies.getCount(), formatMillis(latencies.getPercentile(0.5)),
+                    formatMillis(latencies.getPercentile(0.99)), formatMillis(latencies.getMax())));
+        }
+        sb.append(getStorageStats("Saves", metrics.getSaveHistogram(), metrics.getBytesSaved(), "written"))
+                .append(getStorageStats("Loads", metrics.getLoadHistogram(), metrics.getBytesLoaded(), "read"))
+                .append("Unreadable task lines: ").append(metrics.getParseFailureCount()).append('\n')
+                .append("Shared task descriptions: ").append(metrics.getDuplicateDescriptionCount())
+                .append(" duplicates, about ").append(metrics.getDescriptionBytesSaved()).append(" bytes saved");
+        if (!metrics.isEnabled()) {
+            sb.append("\nI've paused measuring. Type 'stats on' to carry on.");
+        }
+        return sb.toString();
+    }
+
+    private static String getStorageStats(String name, LatencyHistogram latencies, long bytes, String verb) {
+        if (latencies.getCount() == 0) {
+            return name + ": none\n";
+        }
+        return name + ": " + latencies.getCount() + " (p50 " + formatMillis(latencies.getPercentile(0.5))
+                + ", p99 " + formatMillis(latencies.getPercentile(0.99)) + ", max " + formatMillis(latencies.getMax())
+                + "), " + bytes + " bytes " + verb + "\n";
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1e6);
+    }
+
+    /**
+     * Returns a message for metrics being turned on or off.
+     *
+     * @param isEnabled Whether they are now on.
+     * @return A confirmation message.
+     */
+    public String getStatsToggledMessage(boolean isEnabled) {
+        return isEnabled
+                ? "I'm timing every command from now on. Type 'stats' to see the numbers."
+                : "I've stopped timing commands. The numbers so far are kept.";
+    }
+
+    /**
+     * Returns a message for metrics being cleared.
+     *
+     * @return A confirmation message.
+     */
+    public String getStatsResetMessage() {
+        return "All stats are back to zero.";
+    }
+
     /**
      * Returns an error message when a command's description is empty.
      *
@@ -138,16 +419,99 @@ public class Ui {
                  • event <task description> /from <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm>
                - Manage tasks:
                  • list       : View all tasks.
+                 • list <p> --limit <k> : View page p, k tasks per page.
+                 • list --ids : Also show each task's id.
                  • mark <n>   : Mark task number n as done.
                  • unmark <n> : Mark task number n as not done.
                  • delete <n> : Delete task number n.
+                 Use #<id> instead of <n> to pick a task by its id, which
+                 stays the same when other tasks are deleted.
+                 Pick many tasks at once with a list such as 3,7,10-250,
+                 or with all, done, or /before <yyyy-MM-dd>.
+                 • undo       : Take back the last change.
+                 • redo       : Make the last change taken back again.
                - Search for tasks:
                  • find <keyword> : Locate tasks by keyword.
+                 • find --all <keyword> : Also search the archive.
+                 • due <yyyy-MM-dd> : Deadlines due on a date.
+                 • upcoming [<n>h|<n>d|<n>w] : Deadlines and events coming up (a week by default).
+                 • overlap <from> <to> : Deadlines and events between two dates,
+                   given as yyyy-MM-dd or yyyy-MM-dd HHmm.
+                 • overdue : Deadlines that have passed but aren't done.
+               - Storage:
+                 • migrate <text|binary> : Convert the data file format.
+                 • import <file.csv|file.jsonl> : Add every task in a file.
+                 • export <file.csv|file.jsonl> : Write all tasks to a file.
+                 • archive [<n>h|<n>d|<n>w] : Move done tasks to the archive,
+                   or only those whose date passed longer ago than that.
+               - Performance:
+                 • stats [on|off|reset] : Show or control command and storage timings.
                Need a reminder? Just type 'help' anytime.
                Let's get started!
                """;
     }
 
+    /**
+     * Returns a message listing the deadlines due on a date.
+     *
+     * @param date The date asked about.
+     * @param tasks The deadlines due on that date.
+     * @return A formatted list of tasks.
+     */
+    public String getTasksDueMessage(LocalDate date, List<Task> tasks) {
+        return getScheduleMessage("Here's what's due on " + date + ":", tasks, "Nothing is due on " + date + ".");
+    }
+
+    /**
+     * Returns a message listing the deadlines and events coming up.
+     *
+     * @param amount The length of the period asked about, in units.
+     * @param unit The unit of the period: hours, days or weeks.
+     * @param tasks The deadlines and events in the period.
+     * @return A formatted list of tasks.
+     */
+    public String getUpcomingTasksMessage(long amount, ChronoUnit unit, List<Task> tasks) {
+        String unitName = unit.toString().toLowerCase(Locale.ROOT);
+        String period = amount + " " + (amount == 1 ? unitName.substring(0, unitName.length() - 1) : unitName);
+        return getScheduleMessage("Here's what's coming up in the next " + period + ":", tasks,
+                "Nothing is coming up in the next " + period + ". Enjoy the free time!");
+    }
+
+    /**
+     * Returns a message listing the deadlines and events in a range of dates.
+     *
+     * @param from The start of the range as the user typed it.
+     * @param to The end of the range as the user typed it.
+     * @param tasks The deadlines and events in the range.
+     * @return A formatted list of tasks.
+     */
+    public String getOverlappingTasksMessage(String from, String to, List<Task> tasks) {
+        String range = "between " + from + " and " + to;
+        return getScheduleMessage("Here's what falls " + range + ":", tasks, "Nothing falls " + range + ".");
+    }
+
+    /**
+     * Returns a message listing the deadlines that have passed but are not done.
+     *
+     * @param tasks The overdue deadlines.
+     * @return A formatted list of tasks.
+     */
+    public String getOverdueTasksMessage(List<Task> tasks) {
+        return getScheduleMessage("These deadlines have passed, but the tasks aren't done yet:", tasks,
+                "Nothing is overdue. Great work!");
+    }
+
+    private String getScheduleMessage(String header, List<Task> tasks, String emptyMessage) {
+        if (tasks.isEmpty()) {
+            return emptyMessage;
+        }
+        StringBuilder sb = new StringBuilder(header);
+        for (int i = 0; i < tasks.size(); i++) {
+            sb.append("\n").append(i + 1).append(". ").append(tasks.get(i));
+        }
+        return sb.toString();
+    }
+
     /**
      * Returns a message listing all matching tasks.
      * @param tasks an ArrayList of matching tasks.
@@ -162,4 +526,94 @@ public class Ui {
         sb.append("\nHope this helps!");
         return sb.toString();
     }
+
+    /**
+     * Returns a message listing the matching tasks in the list, then those in the archive.
+     * The archived tasks are numbered on from the live ones, but cannot be picked by their number.
+     *
+     * @param tasks The matching tasks in the list.
+     * @param archivedTasks The matching archived tasks.
+     * @return A formatted string of matching tasks.
+     */
+    public String getMatchingTasksMessage(List<Task> tasks, List<Task> archivedTasks) {
+        StringBuilder sb = new StringBuilder("I found some tasks that match your query:");
+        for (int i = 0; i < tasks.size(); i++) {
+            sb.append("\n").append(i + 1).append(". ").append(tasks.get(i));
+        }
+        if (!archivedTasks.isEmpty()) {
+            sb.append("\nIn the archive:");
+            for (int i = 0; i < archivedTasks.size(); i++) {
+                sb.append("\n").append(tasks.size() + i + 1).append(". ").append(archivedTasks.get(i));
+            }
+        }
+        sb.append("\nHope this helps!");
+        return sb.toString();
+    }
+
+    /**
+     * Returns a message for done tasks moved to the archive.
+     *
+     * @param archivedCount The number of tasks moved, possibly zero.
+     * @param taskCount The number of tasks left in the list.
+     * @return A confirmation message.
+     */
+    public String getArchivedMessage(int archivedCount, int taskCount) {
+        if (archivedCount == 0) {
+            return "There are no done tasks to archive.";
+        }
+        return "Done! I've moved " + archivedCount + (archivedCount == 1 ? " done task" : " done tasks")
+                + " to the archive. Use 'find --all <keyword>' to search it."
+                + "\nNow there are " + taskCount + (taskCount == 1 ? " task" : " tasks") + " in the list.";
+    }
+
+    /**
+     * Returns a message for a change taken back by undo, or made again by redo.
+     *
+     * @param isRedo Whether the change was redone.
+     * @param delta What was done to the list.
+     * @param taskCount The number of tasks now.
+     * @return A confirmation message.
+     */
+    public String getUndoneMessage(boolean isRedo, History.Delta delta, int taskCount) {
+        int count = delta.count();
+        String tasks = count == 1 ? " task" : " tasks";
+        String change = switch (delta.kind()) {
+        case INSERT -> "brought back " + count + tasks;
+        case DELETE -> "removed " + count + tasks;
+        case MARK -> "marked " + count + tasks + " as done";
+        case UNMARK -> "marked " + count + tasks + " as not done";
+        };
+        return (isRedo ? "Redone! I've " : "Undone! I've ") + change + "."
+                + "\nNow there are " + taskCount + (taskCount == 1 ? " task" : " tasks") + " in the list.";
+    }
+
+    /**
+     * Returns a message for an undo or redo with no change to take back or make again.
+     *
+     * @param isRedo Whether redo was asked for.
+     * @return A message.
+     */
+    public String getNothingToUndoMessage(boolean isRedo) {
+        return isRedo ? "There's nothing to redo." : "There's nothing to undo.";
+    }
+
+    /**
+     * Returns an error message for undo or redo on a task list that other front ends share.
+     *
+     * @return An error message.
+     */
+    public String getUndoUnavailableMessage() {
+        return "Undo and redo are off while others share this list, so you can't undo someone else's change.";
+    }
+
+    /**
+     * Returns an error message for an archive that could not be read or written.
+     *
+     * @param e The error that stopped the command.
+     * @return An error message.
+     */
+    public String getArchiveError(IOException e) {
+        return "I couldn't use the archive (" + e.getClass().getSimpleName() + ": " + e.getMessage()
+                + "). Your task list is unchanged.";
+    }
 }
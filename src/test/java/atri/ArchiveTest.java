@@ -0,0 +1,83 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<String> fileStrings(List<Task> tasks) {
+        return tasks.stream().map(Task::toFileString).toList();
+    }
+
+    @Test
+    void archiveCommand_doneTasks_leaveListAndSnapshotButAreFound() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        storage.setSynchronous(true);
+        storage.setQuiet(true);
+        TaskList taskList = new TaskList(storage.loadTasks());
+        Atri atri = new Atri(storage, taskList);
+        atri.getResponse("todo read book");
+        atri.getResponse("deadline return book /by 2020-01-01 1200");
+        atri.getResponse("deadline write report /by 2020-01-02 1200");
+        atri.getResponse("mark 1,2");
+
+        assertTrue(atri.getResponse("archive 1w").contains("moved 1 done task"));
+        assertTrue(atri.getResponse("archive").contains("moved 1 done task"));
+        assertEquals("There are no done tasks to archive.", atri.getResponse("archive"));
+        storage.saveTasks(taskList);
+        storage.close();
+
+        assertEquals(List.of("D | 0 | write report | 2020-01-02 1200"), fileStrings(new Storage(dataFile).loadTasks()));
+        assertTrue(atri.getResponse("find book").endsWith("match your query:\nHope this helps!"));
+        assertEquals("I found some tasks that match your query:\n1. [D][ ] write report (by: Jan 02 2020 1200)"
+                + "\nIn the archive:\n2. [D][X] return book (by: Jan 01 2020 1200)\n3. [T][X] read book"
+                + "\nHope this helps!", atri.getResponse("find --all r"));
+        storage.close();
+    }
+
+    @Test
+    void find_afterAppendAndReopen_searchesEveryRecord() throws Exception {
+        Path file = tempDir.resolve("atri.txt.archive");
+        Archive archive = new Archive(file);
+        archive.append(List.of(new ToDo("read book"), new Event("book fair", LocalDateTime.of(2024, 5, 1, 9, 0),
+                LocalDateTime.of(2024, 5, 3, 18, 0))));
+        assertEquals(2, archive.find("book").size());
+        archive.append(List.of(new ToDo("buy BOOKS")));
+        assertEquals(List.of("T | 0 | read book", "E | 0 | book fair | 2024-05-01 0900 | 2024-05-03 1800",
+                "T | 0 | buy BOOKS"), fileStrings(archive.find("book")));
+        archive.close();
+
+        assertEquals(3, new Archive(file).getSize());
+        assertEquals(List.of(3), new Archive(file).find("uy").stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void open_recordCutShort_dropsIt() throws Exception {
+        Path file = tempDir.resolve("atri.txt.archive");
+        Archive archive = new Archive(file);
+        archive.append(List.of(new ToDo("read book"), new ToDo("write essay")));
+        archive.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        Archive reopened = new Archive(file);
+        assertEquals(1, reopened.getSize());
+        reopened.append(List.of(new ToDo("buy milk")));
+        assertEquals(List.of("T | 0 | read book", "T | 0 | buy milk"), fileStrings(reopened.find("")));
+        reopened.close();
+    }
+}
@@ -0,0 +1,40 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CliTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void run_scriptEndingInBye_answersEachCommandAndStops() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String script = "todo read book\n\nmark 1\nbye\ntodo never added\n";
+
+        Cli.run(new BufferedReader(new StringReader(script)), new PrintStream(output, false, StandardCharsets.UTF_8),
+                new Storage(dataFile), false);
+
+        String text = output.toString(StandardCharsets.UTF_8);
+        Task doneTask = new ToDo("read book");
+        doneTask.markDone();
+        Ui ui = new Ui();
+        assertTrue(text.startsWith("As a high performance robot"));
+        assertTrue(text.endsWith(ui.getTaskMarkedMessage(doneTask) + "\n" + ui.getGoodbyeMessage() + "\n"));
+        assertEquals(List.of("T | 1 | read book"), new Storage(dataFile).loadTasks().stream()
+                .map(Task::toFileString).toList());
+    }
+}
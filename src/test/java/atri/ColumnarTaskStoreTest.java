@@ -0,0 +1,112 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ColumnarTaskStoreTest {
+
+    private static final String[] WORDS = {
+        "Read", "book", "BOOKS", "café", "x-ray", "2024", "İstanbul", "Ⅻ", "ZIP"
+    };
+    private static final String[] KEYWORDS = {"", "a", "bo", "ok b", "é", "x-r", "i̇st", "ⅻ", "zi", "missing"};
+
+    @Test
+    void columnarList_randomChanges_matchesObjectList() {
+        Random random = new Random(11);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        TaskList objects = new TaskList(new ArrayList<>());
+        TaskList columns = new TaskList(ColumnarTaskStore.from(new ArrayList<>()));
+        for (int round = 0; round < 4000; round++) {
+            int size = objects.getSize();
+            switch (size == 0 ? 0 : random.nextInt(8)) {
+            case 0, 1, 2 -> {
+                objects.addTask(createTask(start, round));
+                columns.addTask(createTask(start, round));
+            }
+            case 3 -> {
+                int index = random.nextInt(size);
+                objects.deleteTask(index);
+                columns.deleteTask(index);
+            }
+            case 4 -> {
+                BitSet indices = randomIndices(random, size);
+                objects.deleteTasks(indices);
+                columns.deleteTasks(indices);
+            }
+            case 5 -> {
+                BitSet indices = randomIndices(random, size);
+                boolean isDone = random.nextBoolean();
+                objects.markTasks(indices, isDone);
+                columns.markTasks(indices, isDone);
+            }
+            default -> {
+                int index = random.nextInt(size);
+                objects.markTaskDone(index);
+                columns.markTaskDone(index);
+            }
+            }
+            if (round % 200 == 0) {
+                checkSame(objects, columns, start.plusMinutes(random.nextInt(60 * 24 * 30)));
+            }
+        }
+        checkSame(objects, columns, start.plusDays(15));
+    }
+
+    /**
+     * Returns a task made from the given seed, the same one every time.
+     */
+    private static Task createTask(LocalDateTime start, int seed) {
+        Random random = new Random(seed);
+        StringBuilder description = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            description.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        LocalDateTime from = start.plusMinutes(random.nextInt(60 * 24 * 30));
+        Task task = switch (random.nextInt(3)) {
+        case 0 -> new ToDo(description.toString());
+        case 1 -> new Deadline(description.toString(), from);
+        default -> new Event(description.toString(), from, from.plusMinutes(random.nextInt(60 * 24 * 3)));
+        };
+        if (random.nextBoolean()) {
+            task.markDone();
+        }
+        return task;
+    }
+
+    private static BitSet randomIndices(Random random, int size) {
+        BitSet indices = new BitSet();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            indices.set(random.nextInt(size));
+        }
+        return indices;
+    }
+
+    private static void checkSame(TaskList objects, TaskList columns, LocalDateTime time) {
+        assertEquals(describe(objects.getTasks()), describe(columns.getTasks()));
+        for (String keyword : KEYWORDS) {
+            assertEquals(describe(objects.scanTasks(keyword)), describe(columns.scanTasks(keyword)), keyword);
+            assertEquals(describe(objects.findTasks(keyword)), describe(columns.findTasks(keyword)), keyword);
+        }
+        LocalDateTime to = time.plusDays(3);
+        assertEquals(describe(objects.findTasksBetween(time, to)), describe(columns.findTasksBetween(time, to)));
+        assertEquals(describe(objects.findOverdueTasks(time)), describe(columns.findOverdueTasks(time)));
+        assertEquals(objects.selectTasks(Task::isDone), columns.selectTasks(Task::isDone));
+        for (Task task : objects.getTasks()) {
+            assertEquals(objects.getIndexOfId(task.getId()), columns.getIndexOfId(task.getId()));
+        }
+    }
+
+    /**
+     * Returns each task's id and file line, which together say everything about it.
+     */
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream().map(task -> task.getId() + " " + task.toFileString()).toList();
+    }
+}
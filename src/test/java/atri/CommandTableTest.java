@@ -0,0 +1,47 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandTableTest {
+
+    private final CommandTable table = createTable();
+
+    private static CommandTable createTable() {
+        CommandTable table = new CommandTable();
+        table.register("deadline", command -> "deadline", "/by");
+        table.register("event", command -> "event", "/from", "/to");
+        table.register("list", command -> "list");
+        return table;
+    }
+
+    @Test
+    void parse_flagsInAnyOrder_splitsDescriptionAndValues() {
+        ParsedCommand command = table.parse("event  team  meeting /to 2024-12-25 1800 /from 2024-12-25 1600 ");
+        assertEquals("event", command.name());
+        assertEquals("team  meeting", command.description());
+        assertEquals("2024-12-25 1600", command.flag("/from"));
+        assertEquals("2024-12-25 1800", command.flag("/to"));
+        assertEquals("event", command.execute());
+    }
+
+    @Test
+    void parse_flagNotAWordOfItsOwn_isPartOfTheText() {
+        ParsedCommand command = table.parse("deadline read a/by b /byx /by 2024-12-25 1800 /by later");
+        assertEquals("read a/by b /byx", command.description());
+        assertEquals("2024-12-25 1800 /by later", command.flag("/by"));
+        assertNull(table.parse("deadline read /by").flag("/by"));
+        assertNull(table.parse("deadline /by 2024-12-25 1800").flag("/by"));
+    }
+
+    @Test
+    void parse_commandNames_matchIgnoringCase() {
+        assertEquals("list", table.parse("LIST 2 --ids").name());
+        assertEquals("2 --ids", table.parse("List 2 --ids").text());
+        assertEquals("", table.parse("list").text());
+        assertNull(table.parse("lists"));
+        assertNull(table.parse(""));
+    }
+}
@@ -0,0 +1,206 @@
+package atri;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentTaskListTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int OPERATIONS_PER_WRITER = 3000;
+
+    @Test
+    void concurrentWritersAndReaders_readsAreConsistentAndListenerSeesLinearOrder() throws Exception {
+        ArrayList<Task> initialTasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            initialTasks.add(new ToDo("initial " + i));
+        }
+        ConcurrentTaskList taskList = new ConcurrentTaskList(initialTasks);
+        Replica replica = new Replica(taskList.getTasks());
+        taskList.setListener(replica);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        try {
+            for (int t = 0; t < WRITERS; t++) {
+                int writer = t;
+                writers.add(executor.submit(() -> write(taskList, writer)));
+            }
+            for (int t = 0; t < READERS; t++) {
+                int reader = t;
+                readers.add(executor.submit(() -> {
+                    Random random = new Random(WRITERS + reader);
+                    while (isWriting.get()) {
+                        checkReads(taskList, random);
+                    }
+                }));
+            }
+            for (Future<?> future : writers) {
+                future.get();
+            }
+            isWriting.set(false);
+            for (Future<?> future : readers) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Task> tasks = taskList.getTasks();
+        assertEquals(replica.tasks.size(), tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(replica.tasks.get(i), tasks.get(i));
+            assertEquals(replica.isDone.get(i), tasks.get(i).isDone());
+            assertEquals(i, taskList.getIndexOfId(tasks.get(i).getId()));
+        }
+    }
+
+    @Test
+    void read_inProgress_holdsOffChanges() throws Exception {
+        ConcurrentTaskList taskList = new ConcurrentTaskList(new ArrayList<>(List.of(new ToDo("read book"))));
+        CountDownLatch isReading = new CountDownLatch(1);
+        Semaphore mayFinish = new Semaphore(0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> reader = executor.submit(() -> taskList.read(() -> {
+                isReading.countDown();
+                mayFinish.acquireUninterruptibly();
+                return taskList.getTasks().size();
+            }));
+            isReading.await();
+            Future<?> writer = executor.submit(() -> taskList.addTask(new ToDo("write essay")));
+            assertThrows(TimeoutException.class, () -> writer.get(200, MILLISECONDS));
+            mayFinish.release();
+            assertEquals(1, (int) reader.get());
+            writer.get();
+            assertEquals(2, taskList.getSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Adds, deletes and marks tasks by position, resolving each position and acting on it in one step.
+     */
+    private static void write(ConcurrentTaskList taskList, int writer) {
+        Random random = new Random(writer);
+        for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+            String description = "writer" + writer + " task " + i;
+            switch (random.nextInt(6)) {
+            case 0, 1 -> taskList.addTask(new ToDo(description));
+            case 2 -> taskList.addTasks(List.of(new ToDo(description), new ToDo(description + " again")));
+            case 3 -> taskList.update(() -> {
+                if (taskList.getSize() > 0) {
+                    taskList.deleteTask(random.nextInt(taskList.getSize()));
+                }
+                return null;
+            });
+            case 4 -> taskList.update(() -> {
+                BitSet indices = new BitSet();
+                for (int j = 0; j < 3 && taskList.getSize() > 0; j++) {
+                    indices.set(random.nextInt(taskList.getSize()));
+                }
+                taskList.deleteTasks(indices);
+                return null;
+            });
+            default -> taskList.update(() -> {
+                if (taskList.getSize() > 0) {
+                    taskList.markTaskDone(random.nextInt(taskList.getSize()));
+                }
+                return null;
+            });
+            }
+        }
+    }
+
+    /**
+     * Checks that every kind of read returns one state of the list: tasks in increasing id order,
+     * and pages whose count and tasks agree.
+     */
+    private static void checkReads(ConcurrentTaskList taskList, Random random) {
+        checkInIdOrder(taskList.getTasks());
+
+        // Positions looked up by id must agree with a copy of the list read in the same step.
+        int[][] positions = taskList.read(() -> {
+            List<Task> tasks = taskList.getTasks();
+            int[][] pairs = new int[tasks.isEmpty() ? 0 : 20][];
+            for (int i = 0; i < pairs.length; i++) {
+                int index = random.nextInt(tasks.size());
+                pairs[i] = new int[] {index, taskList.getIndexOfId(tasks.get(index).getId())};
+            }
+            return pairs;
+        });
+        for (int[] pair : positions) {
+            assertEquals(pair[0], pair[1]);
+        }
+
+        TaskListPage page = TaskListPage.of(taskList, 2, 50, false);
+        assertEquals(Math.max(0, Math.min(50, page.totalCount() - 50)), page.tasks().size());
+        checkInIdOrder(page.tasks());
+
+        ArrayList<Task> matches = taskList.findTasks("writer1 task");
+        checkInIdOrder(matches);
+        for (Task task : matches) {
+            assertTrue(task.getDescription().startsWith("writer1 task"), task.getDescription());
+        }
+    }
+
+    private static void checkInIdOrder(List<Task> tasks) {
+        for (int i = 1; i < tasks.size(); i++) {
+            assertTrue(tasks.get(i - 1).getId() < tasks.get(i).getId(), "ids out of order at " + i);
+        }
+    }
+
+    /**
+     * Applies each change it is told about to a plain list, which ends up equal to the shared one only if
+     * the changes were reported in the order they were made.
+     */
+    private static class Replica implements TaskList.ChangeListener {
+        private final List<Task> tasks;
+        private final List<Boolean> isDone = new ArrayList<>();
+
+        Replica(List<Task> tasks) {
+            this.tasks = new ArrayList<>(tasks);
+            tasks.forEach(task -> isDone.add(task.isDone()));
+        }
+
+        @Override
+        public void changed(History.Delta delta) {
+            BitSet indices = delta.indices();
+            switch (delta.kind()) {
+            case INSERT -> {
+                int i = 0;
+                for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+                    tasks.add(index, delta.tasks().get(i));
+                    isDone.add(index, delta.tasks().get(i++).isDone());
+                }
+            }
+            case DELETE -> {
+                for (int i = indices.length() - 1; i >= 0; i = indices.previousSetBit(i - 1)) {
+                    tasks.remove(i);
+                    isDone.remove(i);
+                }
+            }
+            default -> indices.stream().forEach(i -> isDone.set(i, delta.kind() == History.Kind.MARK));
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+public class DateTimeFormatsTest {
+
+    @Test
+    void formatAndParse_fastPath_matchesFormatter() {
+        LocalDateTime dateTime = LocalDateTime.of(1999, 1, 1, 0, 0);
+        while (dateTime.getYear() < 2031) {
+            String input = DateTimeFormats.INPUT_FORMATTER.format(dateTime);
+            assertEquals(input, DateTimeFormats.formatInput(dateTime));
+            assertEquals(DateTimeFormats.DISPLAY_FORMATTER.format(dateTime), DateTimeFormats.formatDisplay(dateTime));
+            assertEquals(dateTime, DateTimeFormats.parseInput(input));
+            dateTime = dateTime.plusMinutes(6257);
+        }
+    }
+
+    @Test
+    void parseInput_valuesTheFormatterAdjusts_matchesFormatter() {
+        for (String input : new String[] {"2024-02-30 0900", "2023-02-29 2359", "2024-04-31 1200"}) {
+            LocalDateTime expected = LocalDateTime.parse(input, DateTimeFormats.INPUT_FORMATTER);
+            assertEquals(expected, DateTimeFormats.parseInput(input));
+        }
+    }
+
+    @Test
+    void parseInput_invalidInput_throws() {
+        for (String input : new String[] {"2024-13-01 0000", "2024-12-32 0000", "2024-12-25 1860", "2024/12/25 1800",
+                "2024-12-25", "2024-12-25 18:00", "abcd-ef-gh ijkl"}) {
+            assertThrows(DateTimeParseException.class, () -> DateTimeFormats.parseInput(input));
+        }
+    }
+}
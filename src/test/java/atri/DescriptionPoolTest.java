@@ -0,0 +1,39 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+public class DescriptionPoolTest {
+
+    @Test
+    void intern_recurringDescriptions_sharesOneStringAndCountsDuplicates() {
+        DescriptionPool pool = new DescriptionPool();
+        String[] descriptions = {"weekly report", "café", "日報"};
+        String[] pooled = new String[descriptions.length];
+        for (int i = 0; i < descriptions.length; i++) {
+            pool.intern(new String(descriptions[i]));
+            pooled[i] = new String(descriptions[i]);
+            assertSame(pooled[i], pool.intern(pooled[i]));
+        }
+        for (int i = 0; i < descriptions.length; i++) {
+            assertSame(pooled[i], pool.intern(new String(descriptions[i])));
+            assertSame(pooled[i], pool.intern(pooled[i]));
+        }
+
+        assertEquals(3, pool.getDuplicateCount());
+        // 24-byte strings with 16-byte array headers, padded to 8: 13, 4 and 2 * 2 bytes of characters.
+        assertEquals((24 + 32) + (24 + 24) + (24 + 24), pool.getBytesSaved());
+    }
+
+    @Test
+    void parseTaskLine_recurringDescription_sharesOneString() {
+        Storage.TaskParser parser = new Storage.TaskParser();
+        String description = "standup " + DescriptionPoolTest.class.getName();
+        parser.parseTaskLine("T | 0 | " + description);
+        Task todo = parser.parseTaskLine("T | 0 | " + description);
+        Task deadline = parser.parseTaskLine("D | 1 | " + description + " | 2024-12-25 0900");
+        assertSame(todo.getDescription(), deadline.getDescription());
+    }
+}
@@ -0,0 +1,85 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void serve_pipelinedCommandsFromTwoClients_answersEachInOrderOnOneList() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        storage.setQuiet(true);
+        Server server = Server.openTcp(0, storage);
+        Thread acceptor = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        acceptor.start();
+        Ui ui = new Ui();
+
+        try (SocketChannel first = SocketChannel.open(server.getAddress());
+                SocketChannel second = SocketChannel.open(server.getAddress())) {
+            BufferedReader firstIn = reader(first);
+            BufferedReader secondIn = reader(second);
+            assertTrue(Server.readResponse(firstIn).startsWith("As a high performance robot"));
+            Server.readResponse(secondIn);
+
+            // Sent in one write, so the server finds the later commands already waiting.
+            send(first, "todo read book\ntodo .hidden dot\n\nlist\n");
+            assertEquals(ui.getTaskAddedMessage(new ToDo("read book"), 1), Server.readResponse(firstIn));
+            assertEquals(ui.getTaskAddedMessage(new ToDo(".hidden dot"), 2), Server.readResponse(firstIn));
+            assertEquals(ui.getInvalidCommandError(""), Server.readResponse(firstIn));
+            assertTrue(Server.readResponse(firstIn).endsWith("2. [T][ ] .hidden dot"));
+
+            send(second, "mark 1\nbye\nlist\n");
+            Task doneTask = new ToDo("read book");
+            doneTask.markDone();
+            assertEquals(ui.getTaskMarkedMessage(doneTask), Server.readResponse(secondIn));
+            assertEquals(ui.getGoodbyeMessage(), Server.readResponse(secondIn));
+            assertNull(Server.readResponse(secondIn));
+
+            // The second client's mark is the latest change, so an undo must not reach it.
+            send(first, "undo\nredo\nfind read\n");
+            assertEquals(ui.getUndoUnavailableMessage(), Server.readResponse(firstIn));
+            assertEquals(ui.getUndoUnavailableMessage(), Server.readResponse(firstIn));
+            assertTrue(Server.readResponse(firstIn).contains("[T][X] read book"));
+        } finally {
+            server.close();
+            acceptor.join();
+        }
+        assertEquals(List.of("T | 1 | read book", "T | 0 | .hidden dot"), new Storage(dataFile).loadTasks().stream()
+                .map(Task::toFileString).toList());
+    }
+
+    private static BufferedReader reader(SocketChannel channel) {
+        return new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+    }
+
+    private static void send(SocketChannel channel, String text) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TaskList openTaskList(Storage storage) {
+        storage.setSynchronous(true);
+        TaskList taskList = new TaskList(storage.loadTasks());
+        taskList.setListener(storage);
+        return taskList;
+    }
+
+    private List<String> fileStrings(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            lines.add(task.toFileString());
+        }
+        return lines;
+    }
+
+    @Test
+    void loadTasks_afterJournaledMutations_replaysJournal() {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        TaskList taskList = openTaskList(storage);
+        taskList.addTask(new ToDo("read book"));
+        taskList.addTask(new Deadline("return book", LocalDateTime.of(2024, 12, 25, 18, 0)));
+        taskList.addTask(new ToDo("write essay"));
+        taskList.markTaskDone(1);
+        taskList.deleteTask(0);
+        storage.persist(taskList);
+
+        assertFalse(Files.exists(dataFile));
+        List<Task> loaded = new Storage(dataFile).loadTasks();
+        assertEquals(List.of("D | 1 | return book | 2024-12-25 1800", "T | 0 | write essay"),
+                fileStrings(loaded));
+    }
+
+    @Test
+    void loadTasks_afterBulkMutations_replaysEachAsOneRecord() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        TaskList taskList = openTaskList(storage);
+        for (int i = 0; i < 6; i++) {
+            taskList.addTask(new ToDo("task " + i));
+        }
+        BitSet done = new BitSet();
+        done.set(1, 4);
+        taskList.markTasks(done, true);
+        taskList.deleteTasks(taskList.selectTasks(Task::isDone));
+        storage.persist(taskList);
+
+        List<String> journal = Files.readAllLines(dataFile.resolveSibling("atri.txt.journal"));
+        assertEquals("I | 5 | 6 | T | 0 | task 5", journal.get(5));
+        assertEquals(List.of("M | 1-3", "X | 1-3"), journal.subList(6, journal.size()));
+        assertEquals(List.of("T | 0 | task 0", "T | 0 | task 4", "T | 0 | task 5"),
+                fileStrings(new Storage(dataFile).loadTasks()));
+    }
+
+    @Test
+    void compact_foldsJournalIntoSnapshot() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        TaskList taskList = openTaskList(storage);
+        taskList.addTask(new ToDo("read book"));
+        taskList.addTask(new ToDo("write essay"));
+        storage.compact();
+        taskList.markTaskDone(0);
+        storage.persist(taskList);
+
+        List<String> snapshot = Files.readAllLines(dataFile);
+        assertEquals(List.of("1 | T | 0 | read book", "2 | T | 0 | write essay"), snapshot.subList(0, 2));
+        assertTrue(snapshot.get(2).startsWith(TextSnapshot.TRAILER_PREFIX));
+        assertEquals(List.of("T | 1 | read book", "T | 0 | write essay"),
+                fileStrings(new Storage(dataFile).loadTasks()));
+    }
+
+    @Test
+    void persist_unchangedTaskList_skipsWrite() {
+        Storage storage = new Storage(tempDir.resolve("atri.txt"));
+        TaskList taskList = openTaskList(storage);
+        taskList.addTask(new ToDo("read book"));
+        storage.persist(taskList);
+        taskList.findTasks("book");
+        storage.persist(taskList);
+        storage.persist(taskList);
+
+        assertEquals(1, storage.getWriteCount());
+        assertEquals(2, storage.getSkippedWriteCount());
+    }
+
+    @Test
+    void persist_burstOfMutations_coalescedIntoOneFlush() {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile, 10_000);
+        TaskList taskList = new TaskList(storage.loadTasks());
+        taskList.setListener(storage);
+        for (int i = 0; i < 5; i++) {
+            taskList.addTask(new ToDo("task " + i));
+            storage.persist(taskList);
+        }
+        storage.close();
+
+        assertEquals(1, storage.getWriteCount());
+        assertEquals(5, new Storage(dataFile).loadTasks().size());
+    }
+
+    @Test
+    void saveTasks_writesSnapshotAndDiscardsJournal() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        TaskList taskList = openTaskList(storage);
+        taskList.addTask(new ToDo("read book"));
+        storage.saveTasks(taskList);
+
+        assertFalse(Files.exists(tempDir.resolve("atri.txt.journal")));
+        assertEquals(List.of("T | 0 | read book"), fileStrings(new Storage(dataFile).loadTasks()));
+    }
+
+    @Test
+    void loadTasks_snapshotAlteredAfterWrite_keepsCopyOfDamagedFile() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        TaskList taskList = openTaskList(storage);
+        taskList.addTask(new ToDo("read book"));
+        storage.saveTasks(taskList);
+        List<String> lines = new ArrayList<>(Files.readAllLines(dataFile));
+        lines.set(0, "T | 1 | read book");
+        Files.write(dataFile, lines);
+
+        assertEquals(1, new Storage(dataFile).loadTasks().size());
+        assertTrue(Files.exists(tempDir.resolve("atri.txt.damaged")));
+    }
+
+    @Test
+    void loadTasks_snapshotWithoutChecksum_isNotCompactedUntilSavedAgain() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Files.write(dataFile, List.of("T | 0 | read book"));
+        Storage storage = new Storage(dataFile);
+        storage.setQuiet(true);
+        TaskList taskList = openTaskList(storage);
+        assertEquals(1, taskList.getSize());
+
+        taskList.addTask(new ToDo("write essay"));
+        storage.persist(taskList);
+        storage.compact();
+        assertEquals(List.of("T | 0 | read book"), Files.readAllLines(dataFile));
+        assertTrue(Files.exists(tempDir.resolve("atri.txt.damaged")));
+
+        storage.migrate(Storage.Format.TEXT, taskList);
+        taskList.addTask(new ToDo("buy milk"));
+        storage.persist(taskList);
+        storage.compact();
+        storage.close();
+        assertEquals(List.of("T | 0 | read book", "T | 0 | write essay", "T | 0 | buy milk"),
+                fileStrings(TextSnapshot.read(dataFile, new Storage.TaskParser())));
+    }
+
+    @Test
+    void loadTasks_afterUndoneDeletes_replaysInsertRecords() {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        TaskList taskList = openTaskList(storage);
+        for (int i = 0; i < 5; i++) {
+            taskList.addTask(new ToDo("task " + i));
+        }
+        storage.saveTasks(taskList);
+        BitSet indices = new BitSet();
+        indices.set(1);
+        indices.set(3, 5);
+        taskList.deleteTasks(indices);
+        taskList.deleteTask(0);
+        taskList.undo();
+        taskList.undo();
+        taskList.redo();
+        storage.persist(taskList);
+
+        assertEquals(List.of("T | 0 | task 0", "T | 0 | task 2"), fileStrings(new Storage(dataFile).loadTasks()));
+        taskList.undo();
+        storage.persist(taskList);
+        assertEquals(fileStrings(taskList.getTasks()), fileStrings(new Storage(dataFile).loadTasks()));
+        assertEquals(5, taskList.getSize());
+    }
+
+    @Test
+    void migrate_toBinary_reloadsIdenticalTasks() {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        TaskList taskList = openTaskList(storage);
+        taskList.addTask(new ToDo("read book ✔"));
+        taskList.addTask(new Deadline("return book", LocalDateTime.of(1969, 12, 25, 18, 0)));
+        taskList.addTask(new Event("project meeting", LocalDateTime.of(2024, 12, 20, 10, 0),
+                LocalDateTime.of(2024, 12, 20, 11, 30)));
+        taskList.markTaskDone(2);
+        storage.migrate(Storage.Format.BINARY, taskList);
+
+        Storage reloaded = new Storage(dataFile);
+        assertEquals(fileStrings(taskList.getTasks()), fileStrings(reloaded.loadTasks()));
+        assertEquals(Storage.Format.BINARY, reloaded.getFormat());
+    }
+
+    @Test
+    void loadTasks_afterRestart_resolvesIdsToTheSameTasks() {
+        for (Storage.Format format : Storage.Format.values()) {
+            Path dataFile = tempDir.resolve(format + ".txt");
+            Storage storage = new Storage(dataFile);
+            TaskList taskList = openTaskList(storage);
+            for (int i = 1; i <= 5; i++) {
+                taskList.addTask(new ToDo("task " + i));
+            }
+            taskList.deleteTask(taskList.getIndexOfId(2));
+            storage.migrate(format, taskList);
+            taskList.deleteTask(taskList.getIndexOfId(5));
+            taskList.addTask(new ToDo("task 6"));
+            storage.persist(taskList);
+
+            TaskList reloaded = new TaskList(new Storage(dataFile).loadTasks());
+            for (int id : new int[] {1, 3, 4, 6}) {
+                assertEquals("T | 0 | task " + id, reloaded.getTask(reloaded.getIndexOfId(id)).toFileString());
+            }
+            assertEquals(-1, reloaded.getIndexOfId(2));
+            assertEquals(-1, reloaded.getIndexOfId(5));
+            reloaded.addTask(new ToDo("task 7"));
+            assertEquals(4, reloaded.getIndexOfId(7));
+        }
+    }
+
+    @Test
+    void loadTasks_journalWrittenWithoutIds_numbersTasksInOrder() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Files.write(dataFile.resolveSibling("atri.txt.journal"),
+                List.of("A | T | 0 | read book", "A | T | 0 | write essay", "A | 7 | T | 0 | return book"));
+
+        TaskList taskList = new TaskList(new Storage(dataFile).loadTasks());
+        assertEquals(1, taskList.getIndexOfId(2));
+        assertEquals(2, taskList.getIndexOfId(7));
+    }
+
+    @Test
+    void migrateCommand_taskAddedByAnotherFrontEndMeanwhile_isSavedOnce() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        storage.setSynchronous(true);
+        storage.setQuiet(true);
+        boolean[] isMigrating = new boolean[1];
+        Thread[] adder = new Thread[1];
+        ConcurrentTaskList taskList = new ConcurrentTaskList(TaskStore.of(storage.loadTasks())) {
+            @Override
+            public List<Task> getTasks() {
+                if (isMigrating[0] && adder[0] == null) {
+                    // Another front end adds a task while the snapshot is being taken, and gets the time to
+                    // finish unless the migration holds it off.
+                    adder[0] = new Thread(() -> new Atri(storage, this).getResponse("todo write essay"));
+                    adder[0].start();
+                    try {
+                        adder[0].join(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getTasks();
+            }
+        };
+        taskList.setListener(storage);
+        Atri atri = new Atri(storage, taskList);
+        atri.getResponse("todo read book");
+        isMigrating[0] = true;
+        atri.getResponse("migrate binary");
+        adder[0].join();
+        storage.close();
+
+        assertEquals(List.of("T | 0 | read book", "T | 0 | write essay"),
+                fileStrings(new Storage(dataFile).loadTasks()));
+    }
+
+    @Test
+    void loadTasks_binarySnapshotWithAnyByteFlipped_reportsDamageWithoutFailing() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Storage storage = new Storage(dataFile);
+        storage.setQuiet(true);
+        TaskList taskList = openTaskList(storage);
+        taskList.addTask(new ToDo("read book"));
+        taskList.addTask(new Deadline("return book", LocalDateTime.of(2024, 12, 25, 18, 0)));
+        taskList.addTask(new Event("fair", LocalDateTime.of(2024, 12, 20, 10, 0),
+                LocalDateTime.of(2024, 12, 21, 10, 0)));
+        storage.migrate(Storage.Format.BINARY, taskList);
+        storage.close();
+        byte[] snapshot = Files.readAllBytes(dataFile);
+
+        // Past the magic bytes, which decide whether the file is read as binary at all.
+        for (int i = 4; i < snapshot.length; i++) {
+            for (int flip : new int[] {0x01, 0x80, 0xff}) {
+                byte[] damaged = snapshot.clone();
+                damaged[i] ^= (byte) flip;
+                Files.write(dataFile, damaged);
+                Files.deleteIfExists(tempDir.resolve("atri.txt.damaged"));
+
+                Storage reloaded = new Storage(dataFile);
+                reloaded.setQuiet(true);
+                assertTrue(reloaded.loadTasks().size() <= 3);
+                reloaded.close();
+                assertTrue(Files.exists(tempDir.resolve("atri.txt.damaged")), "byte " + i);
+            }
+        }
+    }
+
+    @Test
+    void loadTasks_completedSnapshotLeftByCrash_isInstalled() throws Exception {
+        Path dataFile = tempDir.resolve("atri.txt");
+        Files.write(dataFile, List.of("T | 0 | stale"));
+        Files.write(tempDir.resolve("atri.txt.new"), List.of("T | 1 | fresh"));
+
+        assertEquals(List.of("T | 1 | fresh"), fileStrings(new Storage(dataFile).loadTasks()));
+        assertTrue(Files.exists(dataFile));
+    }
+}
@@ -0,0 +1,245 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskListTest {
+
+    private static final String[] WORDS = {
+        "Read", "book", "books", "return", "café", "a", "ab", "x-ray", "2024", "İstanbul"
+    };
+
+    @Test
+    void findTasks_afterAddsAndDeletes_matchesLinearScan() {
+        Random random = new Random(42);
+        TaskList taskList = new TaskList(new ArrayList<>());
+        String[] keywords = {"", "a", "Bo", "boo", "BOOKS", "ok bo", "x-", "-ra", "turn a", "é", "afé", "0", "202",
+            "i̇st", "missing", " ",
+            "k,", "y,", "q"};
+        for (int round = 0; round < 2000; round++) {
+            if (taskList.getSize() > 0 && random.nextInt(3) == 0) {
+                taskList.deleteTask(random.nextInt(taskList.getSize()));
+            } else {
+                StringBuilder description = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    description.append(random.nextBoolean() ? " " : ", ").append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                taskList.addTask(new ToDo(description.toString()));
+            }
+            if (round % 100 == 0) {
+                for (String keyword : keywords) {
+                    assertEquals(scan(taskList, keyword), taskList.findTasks(keyword), keyword);
+                }
+            }
+        }
+    }
+
+    @Test
+    void getIndexOfId_afterDeletesAndCompaction_matchesListOrder() {
+        Random random = new Random(7);
+        TaskList taskList = new TaskList(new ArrayList<>(List.of(new ToDo("first"), new ToDo("second"))));
+        List<Task> expected = new ArrayList<>(taskList.getTasks());
+        for (int round = 0; round < 3000; round++) {
+            if (!expected.isEmpty() && random.nextInt(5) < 2) {
+                int index = random.nextInt(expected.size());
+                Task deleted = expected.remove(index);
+                taskList.deleteTask(index);
+                assertEquals(-1, taskList.getIndexOfId(deleted.getId()));
+            } else {
+                Task task = new ToDo("task " + round);
+                expected.add(task);
+                taskList.addTask(task);
+            }
+            if (round % 50 == 0) {
+                assertEquals(expected, taskList.getTasks());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(i, taskList.getIndexOfId(expected.get(i).getId()));
+                    assertEquals(expected.get(i), taskList.getTask(i));
+                }
+            }
+        }
+        assertEquals(-1, taskList.getIndexOfId(0));
+    }
+
+    @Test
+    void deleteTasks_afterSingleDeletes_removesSelectedPositions() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(new ToDo("task " + i));
+        }
+        TaskList taskList = new TaskList(new ArrayList<>(tasks));
+        taskList.deleteTask(1);
+        tasks.remove(1);
+        BitSet indices = new BitSet();
+        indices.set(0);
+        indices.set(3, 6);
+
+        taskList.deleteTasks(indices);
+
+        assertEquals(List.of(tasks.get(1), tasks.get(2), tasks.get(6), tasks.get(7), tasks.get(8)),
+                taskList.getTasks());
+        assertEquals(2, taskList.getIndexOfId(tasks.get(6).getId()));
+        assertEquals(-1, taskList.getIndexOfId(tasks.get(3).getId()));
+        assertEquals(List.of(tasks.get(7)), taskList.findTasks("task 8"));
+    }
+
+    @Test
+    void undoAndRedo_afterRandomChanges_restoreEachEarlierList() {
+        checkUndoAndRedo(new TaskList(new ArrayList<>()));
+        checkUndoAndRedo(new TaskList(ColumnarTaskStore.from(new ArrayList<>())));
+    }
+
+    /**
+     * Makes random changes, undos and redos, checking after each that the list, ids included, is the one it was
+     * at that point in its history and that finding tasks by keyword and by id still agrees with it.
+     */
+    private static void checkUndoAndRedo(TaskList taskList) {
+        Random random = new Random(17);
+        List<List<String>> states = new ArrayList<>(List.of(describe(taskList)));
+        int current = 0;
+        for (int round = 0; round < 4000; round++) {
+            int size = taskList.getSize();
+            int action = size == 0 ? random.nextInt(3) : random.nextInt(9);
+            if (action == 0) {
+                assertEquals(current > 0, taskList.undo() != null);
+                current = Math.max(0, current - 1);
+            } else if (action == 1) {
+                assertEquals(current < states.size() - 1, taskList.redo() != null);
+                current = Math.min(states.size() - 1, current + 1);
+            } else {
+                switch (action) {
+                case 2, 3 -> taskList.addTask(new ToDo(WORDS[random.nextInt(WORDS.length)] + " " + round));
+                case 4 -> taskList.addTasks(List.of(new ToDo("first " + round), new ToDo("second " + round)));
+                case 5 -> taskList.deleteTask(random.nextInt(size));
+                case 6 -> taskList.deleteTasks(randomIndices(random, size));
+                case 7 -> taskList.markTasks(randomIndices(random, size), random.nextBoolean());
+                default -> taskList.markTaskDone(random.nextInt(size));
+                }
+                List<String> state = describe(taskList);
+                if (!state.equals(states.get(current))) {
+                    states.subList(current + 1, states.size()).clear();
+                    states.add(state);
+                    current++;
+                    if (states.size() > History.DEFAULT_LIMIT + 1) {
+                        states.remove(0);
+                        current--;
+                    }
+                }
+            }
+            assertEquals(states.get(current), describe(taskList), "round " + round);
+            if (round % 100 == 0) {
+                for (String keyword : new String[] {"bo", "book", "first", "1"}) {
+                    assertEquals(scan(taskList, keyword).toString(), taskList.findTasks(keyword).toString());
+                }
+                List<Task> tasks = taskList.getTasks();
+                for (int i = 0; i < tasks.size(); i++) {
+                    assertEquals(i, taskList.getIndexOfId(tasks.get(i).getId()));
+                }
+            }
+        }
+    }
+
+    private static List<String> describe(TaskList taskList) {
+        return taskList.getTasks().stream().map(task -> task.getId() + " " + task.toFileString()).toList();
+    }
+
+    private static BitSet randomIndices(Random random, int size) {
+        BitSet indices = new BitSet();
+        for (int i = random.nextInt(5); i >= 0; i--) {
+            indices.set(random.nextInt(size));
+        }
+        return indices;
+    }
+
+    @Test
+    void findTasksBetween_afterAddsDeletesAndMarks_matchesLinearScan() {
+        Random random = new Random(3);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        TaskList taskList = new TaskList(new ArrayList<>());
+        for (int round = 0; round < 3000; round++) {
+            if (taskList.getSize() > 0 && random.nextInt(4) == 0) {
+                taskList.deleteTask(random.nextInt(taskList.getSize()));
+            } else if (taskList.getSize() > 0 && random.nextInt(3) == 0) {
+                if (random.nextBoolean()) {
+                    taskList.markTasks(randomIndices(random, taskList.getSize()), random.nextBoolean());
+                } else if (random.nextBoolean()) {
+                    taskList.markTaskDone(random.nextInt(taskList.getSize()));
+                } else {
+                    taskList.markTaskUndone(random.nextInt(taskList.getSize()));
+                }
+            } else {
+                LocalDateTime from = start.plusMinutes(random.nextInt(60 * 24 * 30));
+                Task task = switch (random.nextInt(3)) {
+                case 0 -> new ToDo("todo " + round);
+                case 1 -> new Deadline("deadline " + round, from);
+                default -> new Event("event " + round, from, from.plusMinutes(random.nextInt(60 * 24 * 3)));
+                };
+                if (random.nextBoolean()) {
+                    task.markDone();
+                }
+                taskList.addTask(task);
+            }
+            if (round % 100 == 0) {
+                LocalDateTime from = start.plusMinutes(random.nextInt(60 * 24 * 30));
+                LocalDateTime to = from.plusMinutes(random.nextInt(60 * 24 * 5));
+                assertEquals(scanBetween(taskList, from, to, false), taskList.findTasksBetween(from, to));
+                assertEquals(scanBetween(taskList, from, to, true), taskList.findTasksDue(from, to));
+                List<Task> overdue = new ArrayList<>();
+                for (Task task : scanBetween(taskList, LocalDateTime.MIN, from, true)) {
+                    if (!task.isDone()) {
+                        overdue.add(task);
+                    }
+                }
+                assertEquals(overdue, taskList.findOverdueTasks(from));
+            }
+        }
+    }
+
+    /**
+     * Returns the deadlines due in [from, to) and, unless only deadlines are wanted, the events overlapping it,
+     * ordered by due date or start and then by list order.
+     */
+    private static List<Task> scanBetween(TaskList taskList, LocalDateTime from, LocalDateTime to,
+            boolean isDeadlinesOnly) {
+        List<Task> matches = new ArrayList<>();
+        List<LocalDateTime> times = new ArrayList<>();
+        for (Task task : taskList.getTasks()) {
+            if (task instanceof Deadline deadline && !deadline.getBy().isBefore(from)
+                    && deadline.getBy().isBefore(to)) {
+                matches.add(task);
+                times.add(deadline.getBy());
+            } else if (task instanceof Event event && !isDeadlinesOnly && event.getFrom().isBefore(to)
+                    && !event.getTo().isBefore(from)) {
+                matches.add(task);
+                times.add(event.getFrom());
+            }
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < matches.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> times.get(a).compareTo(times.get(b)));
+        List<Task> sorted = new ArrayList<>();
+        for (int i : order) {
+            sorted.add(matches.get(i));
+        }
+        return sorted;
+    }
+
+    private static List<Task> scan(TaskList taskList, String keyword) {
+        List<Task> matches = new ArrayList<>();
+        for (Task task : taskList.getTasks()) {
+            if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+}
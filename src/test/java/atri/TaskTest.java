@@ -2,6 +2,7 @@ package atri;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDateTime;
@@ -76,6 +77,17 @@ public class TaskTest {
         assertEquals("[E][ ] Team meeting (from: Sept 10 2024 0900 to: Sept 10 2024 1700)", event.toString());
     }
 
+    @Test
+    void toString_afterMarkAndUnmark_rendersCurrentStatus() {
+        Deadline deadline = new Deadline("File taxes", LocalDateTime.of(2024, 8, 15, 18, 0));
+        String line = deadline.toString();
+        assertSame(line, deadline.toString());
+        deadline.markDone();
+        assertEquals("[D][X] File taxes (by: Aug 15 2024 1800)", deadline.toString());
+        deadline.markUndone();
+        assertEquals(line, deadline.toString());
+    }
+
     @Test
     void toFileString_todoTaskNotDone_returnsCorrectFileString() {
         ToDo todo = new ToDo("Grocery shopping");
@@ -0,0 +1,115 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TaskTransferTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<Task> createTasks(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Task task = switch (i % 3) {
+            case 0 -> new ToDo("read \"book\", chapter " + i);
+            case 1 -> new Deadline("return book " + i, LocalDateTime.of(2024, 12, 25, 18, 0));
+            default -> new Event("fair " + i, LocalDateTime.of(2024, 12, 25, 9, 0),
+                    LocalDateTime.of(2024, 12, 26, 17, 30));
+            };
+            if (i % 4 == 0) {
+                task.markDone();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static List<String> fileStrings(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            lines.add(task.toFileString());
+        }
+        return lines;
+    }
+
+    @Test
+    void importTasks_exportedCsvSpanningBatches_readsSameTasks() throws Exception {
+        List<Task> tasks = createTasks(TaskTransfer.BATCH_SIZE * 3 + 5);
+        Path file = tempDir.resolve("tasks.csv");
+        TaskTransfer.exportTasks(file, TaskTransfer.Format.CSV, tasks);
+
+        TaskTransfer.ImportResult result = TaskTransfer.importTasks(file, TaskTransfer.Format.CSV,
+                new Storage.TaskParser());
+
+        assertEquals(fileStrings(tasks), fileStrings(result.tasks()));
+        assertEquals(tasks.size() + 1, result.lineCount());
+        assertEquals(0, result.rejectedCount());
+    }
+
+    @Test
+    void importTasks_jsonLinesWithInvalidLines_rejectsOnlyThose() throws Exception {
+        Path file = tempDir.resolve("tasks.jsonl");
+        Files.write(file, List.of(
+                "{\"type\":\"T\",\"done\":true,\"description\":\"read \\\"book\\\"\"}",
+                "{\"type\":\"D\",\"description\":\"return book\",\"by\":\"2024-13-01 1800\"}",
+                "",
+                "{\"type\":\"E\",\"done\":false,\"description\":\"fair\",\"from\":\"2024-12-25 0900\","
+                        + "\"to\":\"2024-12-26 1730\",\"source\":\"calendar\"}",
+                "{\"type\":\"T\",\"description\":\"a | b\"}",
+                "not json"));
+
+        TaskTransfer.ImportResult result = TaskTransfer.importTasks(file, TaskTransfer.Format.JSONL,
+                new Storage.TaskParser());
+
+        assertEquals(List.of("T | 1 | read \"book\"", "E | 0 | fair | 2024-12-25 0900 | 2024-12-26 1730"),
+                fileStrings(result.tasks()));
+        assertEquals(3, result.rejectedCount());
+        assertEquals(2, result.firstRejectedLine());
+    }
+
+    @Test
+    void exportTasks_jsonLines_roundTrips() throws Exception {
+        List<Task> tasks = createTasks(7);
+        Path file = tempDir.resolve("tasks.jsonl");
+
+        TaskTransfer.exportTasks(file, TaskTransfer.Format.JSONL, tasks);
+
+        assertEquals("{\"type\":\"D\",\"done\":false,\"description\":\"return book 1\",\"by\":\"2024-12-25 1800\"}",
+                Files.readAllLines(file).get(1));
+        assertEquals(fileStrings(tasks), fileStrings(TaskTransfer.importTasks(file, TaskTransfer.Format.JSONL,
+                new Storage.TaskParser()).tasks()));
+    }
+
+    @Test
+    void exportTasks_descriptionWithFieldSeparator_keepsItInOneField() throws Exception {
+        Task deadline = new Deadline("pros | cons, \"draft\"", LocalDateTime.of(2024, 12, 25, 18, 0));
+        Task event = new Event("a | b", LocalDateTime.of(2024, 12, 25, 9, 0), LocalDateTime.of(2024, 12, 26, 17, 30));
+        event.markDone();
+        List<Task> tasks = List.of(deadline, event);
+        Path csvFile = tempDir.resolve("tasks.csv");
+        Path jsonFile = tempDir.resolve("tasks.jsonl");
+
+        TaskTransfer.exportTasks(csvFile, TaskTransfer.Format.CSV, tasks);
+        TaskTransfer.exportTasks(jsonFile, TaskTransfer.Format.JSONL, tasks);
+
+        String[] deadlineFields = {"D", "0", "pros | cons, \"draft\"", "2024-12-25 1800"};
+        String[] eventFields = {"E", "1", "a | b", "2024-12-25 0900", "2024-12-26 1730"};
+        List<String> csvLines = Files.readAllLines(csvFile);
+        assertArrayEquals(deadlineFields, TaskTransfer.parseCsv(csvLines.get(1)));
+        assertArrayEquals(eventFields, TaskTransfer.parseCsv(csvLines.get(2)));
+        List<String> jsonLines = Files.readAllLines(jsonFile);
+        assertArrayEquals(new String[] {"D", "0", "pros | cons, \"draft\"", "2024-12-25 1800", ""},
+                TaskTransfer.parseJson(jsonLines.get(0)));
+        assertArrayEquals(eventFields, TaskTransfer.parseJson(jsonLines.get(1)));
+    }
+}
@@ -0,0 +1,69 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TextSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_largeFileParsedInChunks_keepsOrderAndLineNumbers() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 60_000; i++) {
+            lines.add(i % 20_000 == 0 ? "not a task " + i : "T | 0 | task number " + i);
+        }
+        Path file = tempDir.resolve("atri.txt");
+        Files.write(file, lines);
+
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        List<Task> tasks;
+        try {
+            System.setOut(new PrintStream(output, true));
+            System.setErr(System.out);
+            tasks = assertThrows(DamagedSnapshotException.class,
+                    () -> TextSnapshot.read(file, new Storage.TaskParser())).getTasks();
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+
+        assertEquals(59_997, tasks.size());
+        assertEquals("task number 1", tasks.get(0).getDescription());
+        assertEquals("task number 20001", tasks.get(19_999).getDescription());
+        assertEquals("task number 59999", tasks.get(tasks.size() - 1).getDescription());
+        assertTrue(output.toString().contains("line 20000 "));
+        assertTrue(output.toString().contains("line 40000 "));
+        assertTrue(output.toString().contains("line 60000 "));
+        assertEquals(3, output.toString().lines().count()); // Each unreadable line is reported once.
+    }
+
+    @Test
+    void read_nonStandardLayout_fallsBackToTaskParser() throws Exception {
+        Path file = tempDir.resolve("atri.txt");
+        Files.write(file, List.of("D | 1 | pay rent | 2024-02-30 0900",
+                "E | 0 | trip | 2024-12-20 1000 | 2024-12-21 1000"));
+
+        DamagedSnapshotException e = assertThrows(DamagedSnapshotException.class,
+                () -> TextSnapshot.read(file, new Storage.TaskParser()));
+        List<Task> tasks = e.getTasks();
+
+        assertEquals(file + " has no checksum", e.getMessage());
+        assertEquals("D | 1 | pay rent | 2024-02-29 0900", tasks.get(0).toFileString());
+        assertEquals("E | 0 | trip | 2024-12-20 1000 | 2024-12-21 1000", tasks.get(1).toFileString());
+    }
+}
@@ -0,0 +1,52 @@
+package atri;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class UiTest {
+
+    @Test
+    void getTaskListPage_wholeList_noFooter() {
+        TaskList taskList = new TaskList(new ArrayList<>(List.of(new ToDo("read"), new ToDo("write"))));
+
+        String text = new Ui().getTaskListPage(TaskListPage.of(taskList, 1, TaskListPage.DEFAULT_PAGE_SIZE, false));
+
+        assertEquals("Here are the tasks in your list:\n1. [T][ ] read\n2. [T][ ] write", text);
+    }
+
+    @Test
+    void getTaskListPage_middlePage_rendersOnlyThatPage() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            tasks.add(new ToDo("task " + i));
+        }
+        TaskListPage page = TaskListPage.of(new TaskList(tasks), 2, 3, false);
+        Ui ui = new Ui();
+
+        assertEquals("Here are the tasks in your list:\n4. [T][ ] task 4\n5. [T][ ] task 5\n6. [T][ ] task 6\n"
+                + "Showing tasks 4-6 of 7 (page 2 of 3). Type 'list <page>' to see more.", ui.getTaskListPage(page));
+        assertEquals(List.of("4. [T][ ] task 4", "5. [T][ ] task 5", "6. [T][ ] task 6"), ui.getTaskListRows(page));
+    }
+
+    @Test
+    void getTaskListPage_samePageOfUnchangedList_reusesText() {
+        TaskList taskList = new TaskList(new ArrayList<>(List.of(new ToDo("read"), new ToDo("write"))));
+        Ui ui = new Ui();
+        TaskListPage page = TaskListPage.of(taskList, 1, TaskListPage.DEFAULT_PAGE_SIZE, false);
+        String text = ui.getTaskListPage(page);
+
+        assertSame(text, ui.getTaskListPage(page));
+        assertTrue(page.isSame(1, TaskListPage.DEFAULT_PAGE_SIZE, false, taskList.getVersion()));
+        taskList.markTaskDone(1);
+        assertFalse(page.isSame(1, TaskListPage.DEFAULT_PAGE_SIZE, false, taskList.getVersion()));
+        assertEquals("Here are the tasks in your list:\n1. [T][ ] read\n2. [T][X] write",
+                ui.getTaskListPage(TaskListPage.of(taskList, 1, TaskListPage.DEFAULT_PAGE_SIZE, false)));
+    }
+}
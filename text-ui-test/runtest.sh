@@ -12,21 +12,21 @@ then
     rm ACTUAL.TXT
 fi
 
-# delete data file from previous run if it exists
-if [ -e "./data/atri.txt" ]
+# delete data files (snapshot and journal) from previous run if they exist
+if [ -d "./data" ]
 then
-    rm "./data/atri.txt"
+    rm -r "./data"
 fi
 
-# compile the code into the bin folder, terminates if error occurred
-if ! javac -cp ../src/main/java -Xlint:none -d ../bin ../src/main/java/*.java
+# compile the headless CLI and the classes it uses into the bin folder, terminates if error occurred
+if ! javac -sourcepath ../src/main/java -encoding UTF-8 -Xlint:none -d ../bin ../src/main/java/atri/Cli.java
 then
     echo "********** BUILD FAILURE **********"
     exit 1
 fi
 
 # run the program, feed commands from input.txt file and redirect the output to the ACTUAL.TXT
-java -classpath ../bin Duke < input.txt > ACTUAL.TXT
+java -classpath ../bin atri.Cli --quiet < input.txt > ACTUAL.TXT
 
 # convert to UNIX format
 cp EXPECTED.TXT EXPECTED-UNIX.TXT